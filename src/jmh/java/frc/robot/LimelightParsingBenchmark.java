@@ -0,0 +1,112 @@
+package frc.robot;
+
+import frc.robot.LimelightHelpers.LimelightResults;
+import frc.robot.LimelightHelpers.PoseEstimate;
+import frc.robot.LimelightHelpers.PoseEstimateBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing one botpose frame with the old allocating parser behind {@link LimelightHelpers#getBotPoseEstimate_wpiBlue(String)}
+ * against {@link LimelightHelpers#parseBotPoseEstimate(double[], long, boolean, PoseEstimateBuffer)}, which fills a reused buffer, and
+ * against deserializing the same frame from the JSON dump with {@link LimelightHelpers#getLatestResults(String)}'s {@code ObjectMapper}. Run
+ * with {@code ./gradlew jmh -Pbenchmarks=LimelightParsingBenchmark}; the gc profiler's gc.alloc.rate.norm column is the bytes allocated
+ * per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LimelightParsingBenchmark {
+    private static final int VALUES_PER_FIDUCIAL = 7;
+
+    /**
+     * How many tags are in the frame; a reef face close up shows 1, the coral station or a far reef corner 2 or 3.
+     */
+    @Param({"1", "3"})
+    public int tagCount;
+
+    private double[] botPose;
+    private String json;
+    private long timestampMicros = 123_456_789;
+    private final PoseEstimateBuffer buffer = new PoseEstimateBuffer(16);
+
+    @Setup
+    public void setUp() {
+        botPose = new double[11 + tagCount * VALUES_PER_FIDUCIAL];
+        // x, y, z, roll, pitch, yaw, latency, tag count, tag span, average distance, average area
+        double[] header = {3.08, 2.35, 0, 0, 0, 48, 24.5, tagCount, 0.4, 1.7, 0.6};
+        System.arraycopy(header, 0, botPose, 0, header.length);
+        for (int i = 0; i < tagCount; i++) {
+            int base = 11 + i * VALUES_PER_FIDUCIAL;
+            // id, txnc, tync, ta, distToCamera, distToRobot, ambiguity
+            double[] fiducial = {17 + i, -3.2 + i, 1.1, 0.6, 1.6 + 0.1 * i, 1.7 + 0.1 * i, 0.05};
+            System.arraycopy(fiducial, 0, botPose, base, fiducial.length);
+        }
+        json = buildJsonDump();
+    }
+
+    /**
+     * A json dump of the same frame, shaped like the Limelight's own output, including fields that {@link LimelightResults} ignores.
+     */
+    private String buildJsonDump() {
+        StringBuilder builder = new StringBuilder()
+                .append("{\"pID\":0,\"tl\":12.4,\"cl\":12.1,\"ts\":3421.7,\"ts_rio\":3421.69,\"v\":1")
+                .append(",\"botpose\":[-5.19,-1.68,0,0,0,48,24.5,").append(tagCount).append(",0.4,1.7,0.6]")
+                .append(",\"botpose_wpiblue\":[3.08,2.35,0,0,0,48,24.5,").append(tagCount).append(",0.4,1.7,0.6]")
+                .append(",\"botpose_wpired\":[14.47,5.7,0,0,0,-132,24.5,").append(tagCount).append(",0.4,1.7,0.6]")
+                .append(",\"botpose_tagcount\":").append(tagCount)
+                .append(",\"botpose_span\":0.4,\"botpose_avgdist\":1.7,\"botpose_avgarea\":0.6")
+                .append(",\"t6c_rs\":[0.28,0.05,0.2,0,15,0]")
+                .append(",\"stdev_mt1\":[0.05,0.05,0,0,0,2.1],\"stdev_mt2\":[0.02,0.02,0,0,0,0]")
+                .append(",\"Fiducial\":[");
+        for (int i = 0; i < tagCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"fID\":").append(17 + i).append(",\"fam\":\"36H11\"")
+                    .append(",\"pts\":[],\"skew\":[]")
+                    .append(",\"t6c_ts\":[0.12,-0.08,-1.55,2.1,-14.8,0.3]")
+                    .append(",\"t6r_fs\":[3.08,2.35,0,0,0,48]")
+                    .append(",\"t6r_ts\":[0.1,0.12,-1.65,2.1,-0.2,0.3]")
+                    .append(",\"t6t_cs\":[-0.08,0.05,1.56,-2.1,14.8,-0.3]")
+                    .append(",\"t6t_rs\":[0.2,0.1,1.62,-2.1,-0.2,-0.3]")
+                    .append(",\"ta\":0.6,\"tx\":").append(-3.2 + i).append(",\"txp\":612.5,\"ty\":1.1,\"typ\":340.2}");
+        }
+        return builder.append("],\"Retro\":[],\"Classifier\":[],\"Detector\":[],\"Barcode\":[],\"PythonOut\":[]}").toString();
+    }
+
+    @Benchmark
+    public PoseEstimate oldParser() {
+        return LimelightHelpers.toPoseEstimate(botPose, timestampMicros, false);
+    }
+
+    @Benchmark
+    public void bufferParser(Blackhole blackhole) {
+        LimelightHelpers.parseBotPoseEstimate(botPose, timestampMicros, false, buffer);
+        blackhole.consume(buffer.x);
+        blackhole.consume(buffer.y);
+        blackhole.consume(buffer.yawDegrees);
+        blackhole.consume(buffer.timestampSeconds);
+        blackhole.consume(buffer.rawFiducials[buffer.fiducialCount - 1].ambiguity);
+    }
+
+    @Benchmark
+    public LimelightResults jsonParser() {
+        return LimelightHelpers.parseJsonResults(json);
+    }
+}
@@ -1,5 +1,6 @@
 package frc.robot;
 
+import edu.wpi.first.wpilibj.RobotBase;
 import frc.robot.util.ControlHandler.TriggerType;
 
 /**
@@ -155,6 +156,34 @@ public final class Constants {
 		}
 	}
 	
+	public static class CANBusConstants {
+		/**
+		 * Fraction of the CAN bus bandwidth in use above which {@link frc.robot.util.CanTrafficMonitor} warns.
+		 */
+		public static final double UTILIZATION_BUDGET = 0.7;
+		/**
+		 * Number of motor controller commands (set, setVoltage, setReference) per loop, across all devices, above which {@link frc.robot.util.CanTrafficMonitor} warns.
+		 */
+		public static final int COMMANDS_PER_LOOP_BUDGET = 24;
+	}
+	
+	public static class SimulationConstants {
+		/**
+		 * What the robot code is talking to: the real robot's hardware, a physics simulation, or a log file being replayed by AdvantageKit.
+		 */
+		public enum Mode {
+			REAL,
+			SIM,
+			REPLAY
+		}
+		
+		/**
+		 * The mode to use when not running on a roboRIO. Switch to {@link Mode#REPLAY} to replay a log file from the robot.
+		 */
+		public static final Mode SIM_MODE = Mode.SIM;
+		public static final Mode CURRENT_MODE = RobotBase.isReal() ? Mode.REAL : SIM_MODE;
+	}
+	
 	public static class RobotConstants {
 		public static final int LED_LENGTH = 60;
 		
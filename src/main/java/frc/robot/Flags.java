@@ -119,8 +119,21 @@ public final class Flags {
 
         public static final boolean ENABLE_COSINE_COMPENSATOR = false;
 
+        /**
+         * Whether the drive and odometry path should reuse preallocated module states/positions instead of making new ones every loop.
+         * When enabled, {@link frc.robot.subsystems.swerve.DriveTrainSubsystem#getAbsoluteModulePositions()} returns a shared array, and desired module states passed to the modules are modified in place.
+         * This only cuts down on module state/position objects; the kinematics, the setpoint generator and the returned chassis speeds still allocate.
+         */
+        public static final boolean REUSE_MODULE_STATE_BUFFERS = true;
+
         public static final boolean ENABLE_ANGULAR_VELOCITY_COMPENSATION_TELEOP = false;
 
+        /**
+         * Whether teleop and path following speeds should go through PathPlanner's swerve setpoint generator, which limits module steering and acceleration to what the robot (as described by its RobotConfig) can actually do.
+         * If false, speeds are converted straight to module states and only desaturated.
+         */
+        public static final boolean USE_SWERVE_SETPOINT_GENERATOR = true;
+
         // True if the auton selection GUI in Shuffleboard is active and we're choosing autons from it
         public static final boolean ENABLE_AUTON_CHOOSER = true;
         
@@ -128,7 +141,37 @@ public final class Flags {
 
         public static final boolean ENABLE_LIMEY_APRILTAGS_ODOMETRY_FUSING = true;
 
+        // True to crop, tag filter and downscale the Limelight's image for the tags the pose estimate says it should see, for a higher frame rate.
+        // Off until checked on the robot: the published predictedTags should match the tags the Limelight actually sees.
+        public static final boolean ENABLE_LIMEY_TARGETING = false;
+
+        /**
+         * Whether odometry should be sampled by a separate thread at {@link frc.robot.subsystems.swerve.OdometryThread#FREQUENCY_HZ} instead of once per loop.
+         */
+        public static final boolean ENABLE_HIGH_FREQUENCY_ODOMETRY = true;
+
         public static final boolean ENABLE_DYNAMIC_PATHFINDING = true;
+
+        /**
+         * Whether replanned pathfinding trajectories should be crossfaded in from the trajectory currently being followed. If false, the robot jumps straight to the new trajectory.
+         */
+        public static final boolean ENABLE_PATHFINDING_TRAJECTORY_BLENDING = true;
+
+        /**
+         * Whether pathfinding should be done by the planning service (on a coprocessor) instead of on the robot. The robot still plans locally whenever the service stops responding.
+         */
+        public static final boolean USE_REMOTE_PATHFINDER = false;
+
+        /**
+         * Whether to run a stand-in planning service inside the simulated robot, so the remote pathfinder can be tested without a coprocessor.
+         */
+        public static final boolean RUN_PATHFINDING_SERVICE_IN_SIM = true;
+
+        /**
+         * Whether every pathfinder call should be recorded to a log file in pathfinding_logs, for replaying with PathfindingReplay.
+         * Off by default so the robot doesn't write to its disk in matches; turn it on to capture a session.
+         */
+        public static final boolean RECORD_PATHFINDING = false;
     }
     
     private Flags() {}
@@ -572,6 +572,52 @@ public class LimelightHelpers {
 
     }
 
+    /**
+     * A pose estimate whose fields are filled in place by
+     * {@link LimelightHelpers#parseBotPoseEstimate(double[], long, boolean, PoseEstimateBuffer)}, so one instance can be reused for every
+     * frame. The pose is kept as plain doubles; call {@link #toPoseEstimate()} only where allocating is fine.
+     */
+    public static class PoseEstimateBuffer {
+        public boolean valid = false;
+        public double x = 0;
+        public double y = 0;
+        public double z = 0;
+        public double rollDegrees = 0;
+        public double pitchDegrees = 0;
+        public double yawDegrees = 0;
+        public double timestampSeconds = 0;
+        public double latency = 0;
+        public int tagCount = 0;
+        public double tagSpan = 0;
+        public double avgTagDist = 0;
+        public double avgTagArea = 0;
+        public boolean isMegaTag2 = false;
+
+        /** The first {@link #fiducialCount} entries are the fiducials of the last parsed frame. */
+        public final RawFiducial[] rawFiducials;
+        public int fiducialCount = 0;
+
+        /**
+         * @param maxFiducials How many fiducials to keep per frame; any more in a frame are ignored
+         */
+        public PoseEstimateBuffer(int maxFiducials) {
+            this.rawFiducials = newRawFiducialBuffer(maxFiducials);
+        }
+
+        /**
+         * @return A new {@link PoseEstimate} with this buffer's current values.
+         */
+        public PoseEstimate toPoseEstimate() {
+            RawFiducial[] fiducials = new RawFiducial[fiducialCount];
+            for (int i = 0; i < fiducialCount; i++) {
+                RawFiducial f = rawFiducials[i];
+                fiducials[i] = new RawFiducial(f.id, f.txnc, f.tync, f.ta, f.distToCamera, f.distToRobot, f.ambiguity);
+            }
+            return new PoseEstimate(new Pose2d(x, y, Rotation2d.fromDegrees(yawDegrees)), timestampSeconds, latency, tagCount, tagSpan,
+                avgTagDist, avgTagArea, fiducials, isMegaTag2);
+        }
+    }
+
     private static ObjectMapper mapper;
 
     /**
@@ -671,9 +717,14 @@ public class LimelightHelpers {
         DoubleArrayEntry poseEntry = LimelightHelpers.getLimelightDoubleArrayEntry(limelightName, entryName);
         
         TimestampedDoubleArray tsValue = poseEntry.getAtomic();
-        double[] poseArray = tsValue.value;
-        long timestamp = tsValue.timestamp;
-        
+        return toPoseEstimate(tsValue.value, tsValue.timestamp, isMegaTag2);
+    }
+
+    /**
+     * The allocating parser behind {@link #getBotPoseEstimate_wpiBlue(String)} and friends. Package-private so it can be benchmarked
+     * against {@link #parseBotPoseEstimate(double[], long, boolean, PoseEstimateBuffer)}.
+     */
+    static PoseEstimate toPoseEstimate(double[] poseArray, long timestamp, boolean isMegaTag2) {
         if (poseArray.length == 0) {
             // Handle the case where no data is available
             return null; // or some default PoseEstimate
@@ -745,6 +796,85 @@ public class LimelightHelpers {
         return rawFiducials;
     }
 
+    /**
+     * Creates a buffer of reusable fiducials for {@link #parseRawFiducials(double[], RawFiducial[])}.
+     *
+     * @param capacity Maximum number of fiducials the buffer can hold
+     * @return An array of zeroed RawFiducials
+     */
+    public static RawFiducial[] newRawFiducialBuffer(int capacity) {
+        RawFiducial[] buffer = new RawFiducial[capacity];
+        for (int i = 0; i < capacity; i++) {
+            buffer[i] = new RawFiducial(0, 0, 0, 0, 0, 0, 0);
+        }
+        return buffer;
+    }
+
+    /**
+     * Parses a rawfiducials array into caller-owned fiducials without allocating or going through the JSON dump.
+     *
+     * @param rawFiducialArray The rawfiducials value: 7 values (id, txnc, tync, ta, distToCamera, distToRobot, ambiguity) per fiducial
+     * @param out              Fiducials to fill in, e.g. from {@link #newRawFiducialBuffer(int)}
+     * @return The number of fiducials filled in, at most out.length. 0 if the array is malformed.
+     */
+    public static int parseRawFiducials(double[] rawFiducialArray, RawFiducial[] out) {
+        return parseFiducials(rawFiducialArray, 0, rawFiducialArray.length, out);
+    }
+
+    private static int parseFiducials(double[] data, int start, int end, RawFiducial[] out) {
+        int valsPerEntry = 7;
+        if (end < start || (end - start) % valsPerEntry != 0) {
+            return 0;
+        }
+        int count = Math.min((end - start) / valsPerEntry, out.length);
+        for (int i = 0; i < count; i++) {
+            int baseIndex = start + i * valsPerEntry;
+            RawFiducial fiducial = out[i];
+            fiducial.id = (int) data[baseIndex];
+            fiducial.txnc = data[baseIndex + 1];
+            fiducial.tync = data[baseIndex + 2];
+            fiducial.ta = data[baseIndex + 3];
+            fiducial.distToCamera = data[baseIndex + 4];
+            fiducial.distToRobot = data[baseIndex + 5];
+            fiducial.ambiguity = data[baseIndex + 6];
+        }
+        return count;
+    }
+
+    /**
+     * Parses a botpose array (e.g. botpose_wpiblue or botpose_orb_wpiblue) into a caller-owned estimate without allocating or going
+     * through the JSON dump. Same result as {@link #getBotPoseEstimate_wpiBlue(String)}, but the caller supplies the array (e.g. from a
+     * queued read) so each frame is parsed exactly once.
+     *
+     * @param poseArray       The botpose value: pose, latency, tag count, span, distance and area, then 7 values per fiducial
+     * @param timestampMicros When the value was published, in the local (FPGA) time base, in microseconds
+     * @param isMegaTag2      Whether the array is a MegaTag2 estimate
+     * @param out             The estimate to fill in
+     * @return Whether the array held a pose. If not, out.valid is false and the rest of out is unchanged.
+     */
+    public static boolean parseBotPoseEstimate(double[] poseArray, long timestampMicros, boolean isMegaTag2, PoseEstimateBuffer out) {
+        if (poseArray.length < 11) {
+            out.valid = false;
+            return false;
+        }
+        out.valid = true;
+        out.x = poseArray[0];
+        out.y = poseArray[1];
+        out.z = poseArray[2];
+        out.rollDegrees = poseArray[3];
+        out.pitchDegrees = poseArray[4];
+        out.yawDegrees = poseArray[5];
+        out.latency = poseArray[6];
+        out.tagCount = (int) poseArray[7];
+        out.tagSpan = poseArray[8];
+        out.avgTagDist = poseArray[9];
+        out.avgTagArea = poseArray[10];
+        out.isMegaTag2 = isMegaTag2;
+        out.timestampSeconds = (timestampMicros / 1000000.0) - (out.latency / 1000.0);
+        out.fiducialCount = parseFiducials(poseArray, 11, poseArray.length, out.rawFiducials);
+        return true;
+    }
+
     /**
      * Gets the latest raw neural detector results from NetworkTables
      *
@@ -1564,24 +1694,34 @@ public class LimelightHelpers {
     public static LimelightResults getLatestResults(String limelightName) {
 
         long start = System.nanoTime();
+        LimelightHelpers.LimelightResults results = parseJsonResults(getJSONDump(limelightName));
+
+        long end = System.nanoTime();
+        double millis = (end - start) * .000001;
+        results.latency_jsonParse = millis;
+        if (profileJSON) {
+            System.out.printf("lljson: %.2f\r\n", millis);
+        }
+
+        return results;
+    }
+
+    /**
+     * The JSON parsing behind {@link #getLatestResults(String)}. Package-private so it can be benchmarked.
+     * @param json The Limelight's JSON results output
+     * @return LimelightResults object, with {@code error} set if the JSON could not be parsed
+     */
+    static LimelightResults parseJsonResults(String json) {
         LimelightHelpers.LimelightResults results = new LimelightHelpers.LimelightResults();
         if (mapper == null) {
             mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         }
 
         try {
-            results = mapper.readValue(getJSONDump(limelightName), LimelightResults.class);
+            results = mapper.readValue(json, LimelightResults.class);
         } catch (JsonProcessingException e) {
             results.error = "lljson error: " + e.getMessage();
         }
-
-        long end = System.nanoTime();
-        double millis = (end - start) * .000001;
-        results.latency_jsonParse = millis;
-        if (profileJSON) {
-            System.out.printf("lljson: %.2f\r\n", millis);
-        }
-
         return results;
     }
 }
\ No newline at end of file
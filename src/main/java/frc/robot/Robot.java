@@ -5,10 +5,19 @@
 package frc.robot;
 
 import edu.wpi.first.net.PortForwarder;
-import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
-
-public class Robot extends TimedRobot {
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.subsystems.staticsubsystems.RobotGyro;
+import frc.robot.subsystems.swerve.SwerveSimulation;
+import frc.robot.util.CanBusLoadEstimate;
+import org.littletonrobotics.junction.LogFileUtil;
+import org.littletonrobotics.junction.LoggedRobot;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.networktables.NT4Publisher;
+import org.littletonrobotics.junction.wpilog.WPILOGReader;
+import org.littletonrobotics.junction.wpilog.WPILOGWriter;
+
+public class Robot extends LoggedRobot {
     public static Robot INSTANCE;
 
     private RobotContainer robotContainer;
@@ -16,14 +25,37 @@ public class Robot extends TimedRobot {
     public Robot() {
         super();
         INSTANCE = this;
+        this.initializeAdvantageKit();
+    }
+
+    /**
+     * Start AdvantageKit. On the robot, everything logged is written to a log file and published to NetworkTables; in replay, the inputs are read
+     * back from a log file instead of the hardware, and the outputs written to a new log file next to it.
+     */
+    private void initializeAdvantageKit() {
+        Logger.recordMetadata("ProjectName", "FRC2025");
+        switch (SimulationConstants.CURRENT_MODE) {
+            case REAL -> {
+                Logger.addDataReceiver(new WPILOGWriter());
+                Logger.addDataReceiver(new NT4Publisher());
+            }
+            case SIM -> Logger.addDataReceiver(new NT4Publisher());
+            case REPLAY -> {
+                // run as fast as possible
+                this.setUseTiming(false);
+                String logPath = LogFileUtil.findReplayLog();
+                Logger.setReplaySource(new WPILOGReader(logPath));
+                Logger.addDataReceiver(new WPILOGWriter(LogFileUtil.addPathSuffix(logPath, "_sim")));
+            }
+        }
+        Logger.start();
     }
 
     @Override
     public void robotInit() {
-        // this.initializeAdvantageKit();
-
         this.robotContainer = new RobotContainer();
         this.robotContainer.onRobotInit();
+        CanBusLoadEstimate.report();
 
         for(int port = 5800; port <= 5809; port++) {
             PortForwarder.add(port, "limelight.local", port);
@@ -32,6 +64,7 @@ public class Robot extends TimedRobot {
 
     @Override
     public void robotPeriodic() {
+        RobotGyro.updateInputs();
         CommandScheduler.getInstance().run();
         this.robotContainer.onRobotPeriodic();
     }
@@ -88,5 +121,8 @@ public class Robot extends TimedRobot {
      */
     @Override
     public void simulationPeriodic() {
+        if (SimulationConstants.CURRENT_MODE == SimulationConstants.Mode.SIM) {
+            SwerveSimulation.periodic();
+        }
     }
 }
@@ -3,7 +3,9 @@ package frc.robot;
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.auto.NamedCommands;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -13,13 +15,15 @@ import edu.wpi.first.wpilibj2.command.button.CommandPS4Controller;
 import edu.wpi.first.wpilibj2.command.button.CommandPS5Controller;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import frc.robot.Constants.OperatorConstants;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.Constants.SimulationConstants.Mode;
 import frc.robot.commands.AlgaeGroundIntakeCommand;
 import frc.robot.commands.autons.ElevatorAutonManager;
 import frc.robot.commands.autons.FollowApriltagForwardCommand;
 import frc.robot.commands.climb.BalanceClimberCommand;
 import frc.robot.commands.climb.ClimbCommand;
 import frc.robot.commands.drive.ManualDriveCommand;
-import frc.robot.commands.drive.ReefAprilTagCenterCommand;
+import frc.robot.commands.drive.ReefAlignCommand;
 import frc.robot.commands.drive.pathfinding.commands.PathfindingCommand2;
 import frc.robot.commands.elevator.ElevatorControlCommand;
 import frc.robot.commands.elevator.ElevatorStateManager;
@@ -35,11 +39,19 @@ import frc.robot.subsystems.staticsubsystems.LimeLight;
 import frc.robot.subsystems.staticsubsystems.QuestNav;
 import frc.robot.subsystems.staticsubsystems.RobotGyro;
 import frc.robot.subsystems.swerve.DriveTrainSubsystem;
+import frc.robot.subsystems.vision.Vision;
+import frc.robot.subsystems.vision.VisionIO;
+import frc.robot.subsystems.vision.VisionIOLimelight;
+import frc.robot.subsystems.vision.VisionIOQuestNav;
+import frc.robot.util.CanTrafficMonitor;
 import frc.robot.util.ControlHandler;
 import frc.robot.util.FlagUploader;
 import frc.robot.util.LEDStrip;
+import frc.robot.util.LimelightTargetingManager;
 import frc.robot.util.Util;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 @SuppressWarnings("ConstantValue")
@@ -54,6 +66,8 @@ public class RobotContainer {
     SwerveDrive swerveDrive = new SwerveParser(directory).createSwerveDrive(maximumSpeed)();
     */
 	public final DriveTrainSubsystem driveTrain;
+	private final Vision vision;
+	private final LimelightTargetingManager limelightTargeting;
 	//private final FlightJoystick sideJoystick = new FlightJoystick(new CommandJoystick(OperatorConstants.RIGHT_JOYSTICK_PORT));
 	private final NintendoProController nintendoProController = new NintendoProController(new CommandXboxController(OperatorConstants.NINTENDO_PRO_CONTROLLER));
 	private final PS5Controller ps5Controller = new PS5Controller(new CommandPS5Controller(OperatorConstants.PS5_CONTROLLER));
@@ -61,9 +75,9 @@ public class RobotContainer {
 	private final PS4Controller ps4Controller = new PS4Controller(new CommandPS4Controller(OperatorConstants.PS4_CONTROLLER));
 	private final PS5Controller otherPs5Controller = new PS5Controller(new CommandPS5Controller(OperatorConstants.SECONDARY_PS5_CONTROLLER));
 	private final AbstractController secondaryController = Flags.Operator.HAVE_PS5_CONTROLLER_AS_SECONDARY ? this.otherPs5Controller : this.ps4Controller;
-	// private final VisionIO visionIO = new VisionIO();
 	// private final AprilTagHandler aprilTagHandler = new AprilTagHandler();
 	private final PowerHandler powerHandler = new PowerHandler();
+	private final Timer oculusBatteryCheckTimer = new Timer();
 	private final SendableChooser<Command> autonChooser;
 	private final ElevatorSubsystem elevators;
 	private final ClimberSubsystem climber;
@@ -76,6 +90,9 @@ public class RobotContainer {
 	
 	public RobotContainer() {
 		this.driveTrain = Util.createIfFlagElseNull(DriveTrainSubsystem::new, Flags.DriveTrain.IS_ATTACHED);
+		// created after the drivetrain so its periodic runs after odometry is updated
+		this.vision = Util.createIfFlagElseNull(() -> new Vision(driveTrain::addVisionMeasurement, driveTrain::getPoseAt, createVisionIOs(driveTrain)), Flags.DriveTrain.IS_ATTACHED);
+		this.limelightTargeting = Util.createIfFlagElseNull(() -> new LimelightTargetingManager(LimeLight.getCamera()), Flags.DriveTrain.IS_ATTACHED && Flags.DriveTrain.ENABLE_LIMEY_TARGETING && SimulationConstants.CURRENT_MODE == Mode.REAL);
 		this.elevators = Util.createIfFlagElseNull(ElevatorSubsystem::new, Flags.Elevator.IS_ATTACHED);
 		this.climber = Util.createIfFlagElseNull(ClimberSubsystem::new, Flags.Climber.IS_ATTACHED);
 		this.coralIntake = Util.createIfFlagElseNull(CoralIntakeSubsystem::new, Flags.CoralIntake.IS_ATTACHED);
@@ -110,6 +127,20 @@ public class RobotContainer {
 		INSTANCE = this;
 	}
 	
+	/**
+	 * @return Every camera fused into the pose estimate, in the order of {@link frc.robot.subsystems.vision.VisionConstants#cameraStdDevFactors}.
+	 */
+	private static VisionIO[] createVisionIOs(DriveTrainSubsystem driveTrain) {
+		List<VisionIO> ios = new ArrayList<>();
+		if (Flags.DriveTrain.ENABLE_LIMEY_APRILTAGS_ODOMETRY_FUSING) {
+			ios.add(SimulationConstants.CURRENT_MODE == Mode.REAL ? new VisionIOLimelight(() -> driveTrain.getPose().getRotation()) : new VisionIO() {});
+		}
+		if (Flags.DriveTrain.ENABLE_OCULUS_ODOMETRY_FUSING) {
+			ios.add(SimulationConstants.CURRENT_MODE == Mode.REAL ? new VisionIOQuestNav() : new VisionIO() {});
+		}
+		return ios.toArray(VisionIO[]::new);
+	}
+	
 	private static boolean canUseElevatorControlCommand() {
 		return Flags.Elevator.IS_ATTACHED && Flags.CoralIntake.IS_ATTACHED && Flags.AlgaeReefRemover.IS_ATTACHED && !Flags.Elevator.USE_TEST_PID_COMMAND && !Flags.Elevator.USE_TEST_ELEVATOR_COMMAND && !Flags.CoralIntake.USE_TEST_PID_COMMAND && !Flags.CoralIntake.USE_TEST_CORAL_COMMAND && !Flags.AlgaeReefRemover.USE_TEST_ALGAE_REMOVER_COMMAND;
 	}
@@ -236,7 +267,7 @@ public class RobotContainer {
 			
 			// we need to defer this b/c we need a new command each time
 			ControlHandler.get(this.primaryController, OperatorConstants.PrimaryControllerConstants.REEF_AUTO_PATHFIND).whileTrue(Commands.defer(driveTrain::getFindToSelectedReefCommand, Set.of(driveTrain)));
-			ControlHandler.get(this.primaryController, OperatorConstants.PrimaryControllerConstants.REEF_AUTO_AIM).whileTrue(new ReefAprilTagCenterCommand(driveTrain, this.primaryController));
+			ControlHandler.get(this.primaryController, OperatorConstants.PrimaryControllerConstants.REEF_AUTO_AIM).whileTrue(new ReefAlignCommand(driveTrain));
 			// ControlHandler.get(this.secondaryController, OperatorConstants.SecondaryControllerConstants.MICRO_ADJUST_DRIVING).whileTrue(new SlowerManualDriveCommand(driveTrain, this.secondaryController));
 			//ControlHandler.get(this.secondaryController, OperatorConstants.SecondaryControllerConstants.INTAKE_STATE).whileTrue(new SlowerManualDriveCommand(driveTrain, this.primaryController));
 		}
@@ -324,15 +355,23 @@ public class RobotContainer {
 	
 	public void onTeleopPeriodic() {
 		// this.powerHandler.updateNT();
-		Robot.INSTANCE.addPeriodic(() -> {
+		oculusBatteryCheckTimer.start(); // does nothing if already running
+		if (oculusBatteryCheckTimer.advanceIfElapsed(30)) { // every 30 seconds, check oculus battery
 			if (QuestNav.INSTANCE.oculusLowBattery()) {
 				DriverStation.reportWarning("Oculus battery low! Go charge it or something.", false);
 			}
-		}, 30); // every 30 seconds, check oculus battery
+		}
 	}
 	
 	public void onRobotPeriodic() {
 		LEDStrip.update();
+		CanTrafficMonitor.periodic();
 		QuestNav.INSTANCE.periodic();
+		if (this.limelightTargeting != null) {
+			ChassisSpeeds speeds = this.driveTrain.getRobotRelativeChassisSpeeds();
+			this.limelightTargeting.update(this.driveTrain.getPose(), Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond));
+		}
+		// one flush per loop sends everything set this loop right away, including the heading the Limelight needs for MegaTag 2
+		LimelightHelpers.Flush();
 	}
 }
@@ -9,6 +9,7 @@ import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.subsystems.staticsubsystems.LimeLight;
 import frc.robot.subsystems.swerve.DriveTrainSubsystem;
 import frc.robot.util.AprilTagUtil;
+import frc.robot.util.LimelightCamera;
 import frc.robot.util.Util;
 
 // Need to tune speed and have different times!
@@ -17,6 +18,7 @@ public class FollowApriltagForwardCommand extends Command {
     public static final double MAX_ROT_SPEED_ANGULAR = 3;
     private final DriveTrainSubsystem driveTrain;
     private final Timer timer;
+    private final LimelightCamera limelight = LimeLight.getCamera();
     private final double duration;
     // private boolean endNow;
     private boolean taperSpeed;
@@ -53,9 +55,9 @@ public class FollowApriltagForwardCommand extends Command {
     @Override
     public void execute() {
         if(Util.onBlueTeam()) {
-            LimeLight.setLimeyPipeline(1);
+            this.limelight.setPipeline(1);
         } else {
-            LimeLight.setLimeyPipeline(0);
+            this.limelight.setPipeline(0);
         }
         double flip = DriveTrainSubsystem.flipFactor();
         // System.out.println("vert: " + this.joystick.getRightVerticalMovement() + ", hor: " + this.joystick.getRightHorizontalMovement());
@@ -63,8 +65,8 @@ public class FollowApriltagForwardCommand extends Command {
         final double kPTranslation = 0.2;
         final double kPRotation = 0.1;
         //double flip = flipFactor();
-        double pixelDiff = -LimeLight.getLimeyTX();
-        int tagId = LimeLight.getLimeyTargetTag();
+        double pixelDiff = -this.limelight.getTX();
+        int tagId = this.limelight.getTargetTag();
         // double ySpeedError = -Util.squareKeepSign(this.ySpeedLimiter.calculate(this.joystick.getLeftVerticalMovement() * flip)) * MAX_SPEED_METERS_PER_SEC;
         double xSpeedError = MathUtil.clamp(kPTranslation * pixelDiff, -0.3, 0.3);
         // System.out.println("xSpeed = " + xSpeed);
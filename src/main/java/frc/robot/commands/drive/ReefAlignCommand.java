@@ -0,0 +1,111 @@
+package frc.robot.commands.drive;
+
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.subsystems.staticsubsystems.LimeLight;
+import frc.robot.subsystems.swerve.DriveTrainSubsystem;
+import frc.robot.util.AprilTagUtil;
+import frc.robot.util.LimelightCamera;
+import frc.robot.util.NetworkTablesUtil;
+
+/**
+ * Drives to the scoring pose in front of a reef face: the face whose tag the Limelight sees when the command starts, or the closest face if
+ * it sees no reef tag. The scoring pose is computed once, on the field, from the AprilTag layout, and the robot is driven to it using the
+ * fused pose estimate, so losing sight of the tag on the way doesn't slow it down.
+ * <p>
+ * Translation follows a trapezoidal profile straight toward the target and heading follows its own, each with the profile's velocity as
+ * feedforward plus a P correction, so the robot approaches at full speed and brakes only at the end.
+ */
+public class ReefAlignCommand extends Command {
+    /**
+     * Distance from the tag to the robot's center when scoring: half the bumper-to-bumper length (0.915m, from the PathPlanner robot
+     * config), so the bumpers touch the reef.
+     */
+    private static final double REEF_STANDOFF_METERS = 0.915 / 2;
+    private static final double MAX_ACCELERATION_METERS_PER_SEC_SQUARED = 3;
+    private static final double MAX_ANGULAR_ACCELERATION = 6;
+    // same gains as the PathPlanner pathfinding controller
+    private static final double TRANSLATION_P = 1.35;
+    private static final double ROTATION_P = 1.5;
+    private static final double TRANSLATION_TOLERANCE_METERS = 0.02;
+    private static final double ROTATION_TOLERANCE_RADIANS = Math.toRadians(2);
+
+    private static final StructPublisher<Pose2d> targetPublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getStructTopic("reefAlignTarget", Pose2d.struct).publish();
+
+    private final DriveTrainSubsystem driveTrain;
+    private final LimelightCamera limelight = LimeLight.getCamera();
+    // drives the distance to the target to 0
+    private final ProfiledPIDController driveController = new ProfiledPIDController(
+            TRANSLATION_P, 0, 0,
+            new TrapezoidProfile.Constraints(DriveTrainSubsystem.MAX_SPEED_METERS_PER_SEC, MAX_ACCELERATION_METERS_PER_SEC_SQUARED)
+    );
+    private final ProfiledPIDController thetaController = new ProfiledPIDController(
+            ROTATION_P, 0, 0,
+            new TrapezoidProfile.Constraints(DriveTrainSubsystem.MAX_ROT_SPEED_ANGULAR, MAX_ANGULAR_ACCELERATION)
+    );
+    private Pose2d target = Pose2d.kZero;
+
+    public ReefAlignCommand(DriveTrainSubsystem driveTrain) {
+        this.driveTrain = driveTrain;
+        this.driveController.setTolerance(TRANSLATION_TOLERANCE_METERS);
+        this.thetaController.setTolerance(ROTATION_TOLERANCE_RADIANS);
+        this.thetaController.enableContinuousInput(-Math.PI, Math.PI);
+
+        addRequirements(driveTrain);
+    }
+
+    @Override
+    public void initialize() {
+        Pose2d pose = this.driveTrain.getPose();
+        int seenTag = this.limelight.getTargetTag();
+        int tagId = AprilTagUtil.isReefTag(seenTag) ? seenTag : AprilTagUtil.getNearestReefTag(pose.getTranslation());
+        // facing the same way as the tag, like the old tx centering command's tag to rotation table
+        this.target = AprilTagUtil.getPoseInFrontOfTag(tagId, REEF_STANDOFF_METERS).orElse(pose);
+        targetPublisher.set(this.target);
+
+        // start both profiles from the robot's current motion, so taking over mid-drive doesn't jerk it to a stop first
+        ChassisSpeeds fieldSpeeds = ChassisSpeeds.fromRobotRelativeSpeeds(this.driveTrain.getRobotRelativeChassisSpeeds(), pose.getRotation());
+        Translation2d offset = pose.getTranslation().minus(this.target.getTranslation());
+        double distance = offset.getNorm();
+        double distanceRate = distance < 1e-6 ? 0 : (fieldSpeeds.vxMetersPerSecond * offset.getX() + fieldSpeeds.vyMetersPerSecond * offset.getY()) / distance;
+        this.driveController.reset(distance, distanceRate);
+        this.thetaController.reset(pose.getRotation().getRadians(), fieldSpeeds.omegaRadiansPerSecond);
+    }
+
+    @Override
+    public void execute() {
+        Pose2d pose = this.driveTrain.getPose();
+        Translation2d offset = pose.getTranslation().minus(this.target.getTranslation());
+        double distance = offset.getNorm();
+
+        // negative, since the distance is going down
+        double driveSpeed = this.driveController.calculate(distance, 0) + this.driveController.getSetpoint().velocity;
+        if (this.driveController.atGoal() || distance < 1e-6) {
+            driveSpeed = 0;
+        }
+        Translation2d velocity = distance < 1e-6 ? new Translation2d() : offset.times(driveSpeed / distance);
+
+        double rotSpeed = this.thetaController.calculate(pose.getRotation().getRadians(), this.target.getRotation().getRadians()) + this.thetaController.getSetpoint().velocity;
+        if (this.thetaController.atGoal()) {
+            rotSpeed = 0;
+        }
+
+        this.driveTrain.consumeChassisSpeeds(ChassisSpeeds.fromFieldRelativeSpeeds(velocity.getX(), velocity.getY(), rotSpeed, pose.getRotation()));
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        this.driveTrain.consumeChassisSpeeds(new ChassisSpeeds());
+    }
+
+    // held on a button; stays at the target until released
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+}
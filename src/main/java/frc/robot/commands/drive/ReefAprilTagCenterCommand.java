@@ -2,19 +2,24 @@ package frc.robot.commands.drive;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.controllers.AbstractController;
 import frc.robot.subsystems.staticsubsystems.LimeLight;
 import frc.robot.subsystems.staticsubsystems.RobotGyro;
 import frc.robot.subsystems.swerve.DriveTrainSubsystem;
+import frc.robot.util.LimelightCamera;
 import frc.robot.util.Util;
 
+import java.util.Optional;
+
 public class ReefAprilTagCenterCommand extends Command {
     public static final double MAX_SPEED_METERS_PER_SEC = DriveTrainSubsystem.MAX_SPEED_METERS_PER_SEC;
     public static final double MAX_ROT_SPEED_ANGULAR = 3;
     private final DriveTrainSubsystem driveTrain;
     private final AbstractController joystick;
+    private final LimelightCamera limelight = LimeLight.getCamera();
     private final SlewRateLimiter ySpeedLimiter = new SlewRateLimiter(1);
 
     public ReefAprilTagCenterCommand(DriveTrainSubsystem driveTrain, AbstractController joystick) {
@@ -63,10 +68,16 @@ public class ReefAprilTagCenterCommand extends Command {
         final double kPTranslation = 0.4;
         final double kPRotation = 0.1;
         //double flip = flipFactor();
-        double pixelDiff = -LimeLight.getLimeyTX();
+        // tx is from when the frame was captured; correct it by how far the robot has turned since, so the correction isn't applied twice
+        double tx = this.limelight.getTX();
+        Optional<Pose2d> poseAtCapture = this.driveTrain.getPoseAt(this.limelight.getTXTimestamp());
+        if (poseAtCapture.isPresent()) {
+            tx += MathUtil.inputModulus(this.driveTrain.getPose().getRotation().minus(poseAtCapture.get().getRotation()).getDegrees(), -180, 180);
+        }
+        double pixelDiff = -tx;
         if(Math.abs(pixelDiff) < 0.3) pixelDiff = 0; // tolerance
         else if(Math.abs(pixelDiff) < 0.5) pixelDiff *= .5;
-        int tagId = LimeLight.getLimeyTargetTag();
+        int tagId = this.limelight.getTargetTag();
         double ySpeedError = Util.squareKeepSign(this.ySpeedLimiter.calculate(this.joystick.getLeftVerticalMovement())) * MAX_SPEED_METERS_PER_SEC * 0.25;
         double xSpeedError = MathUtil.clamp(kPTranslation * pixelDiff, -0.1, 0.1);
 
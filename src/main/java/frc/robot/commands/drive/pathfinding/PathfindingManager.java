@@ -18,7 +18,9 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.Subsystem;
 import frc.robot.commands.drive.pathfinding.commands.PathfindThenFollowPath2;
+import frc.robot.RobotContainer;
 import frc.robot.subsystems.swerve.DriveTrainSubsystem;
+import frc.robot.util.ArcLengthIndex;
 import frc.robot.util.Util;
 
 import java.lang.reflect.Field;
@@ -245,8 +247,14 @@ public class PathfindingManager {
 				System.out.println("pfcom null");
 			}
 			PathPlannerTrajectory ppTraj = p.getPfCom().currentTrajectory;
+			ArcLengthIndex ppTrajIndex = p.getPfCom().currentTrajectoryIndex;
 			if(ppTraj != null) {
 				DriveTrainSubsystem.pathfinderPathPub.set(Util.convertPPTrajStateListToDoubleArray(ppTraj.getStates()));
+				if (ppTrajIndex != null) {
+					// distance along the path, total path length, distance off of the path
+					ArcLengthIndex.Projection projection = ppTrajIndex.project(RobotContainer.INSTANCE.driveTrain.getPose().getTranslation());
+					DriveTrainSubsystem.pathfinderProgressPub.set(new double[] {projection.arcLength(), ppTrajIndex.getTotalLength(), projection.distance()});
+				}
 				// System.out.println("pptraj not null");
 			} else {
 				// System.out.println("pptraj null");
@@ -18,6 +18,7 @@ import edu.wpi.first.wpilibj2.command.*;
 import frc.robot.RobotContainer;
 import frc.robot.commands.drive.pathfinding.PathfindingManager;
 import frc.robot.subsystems.swerve.DriveTrainSubsystem;
+import frc.robot.util.ArcLengthIndex;
 import frc.robot.util.Util;
 
 import java.util.List;
@@ -189,19 +190,12 @@ public class PathfindThenFollowPath2 extends SequentialCommandGroup {
 							// as a YOLO heuristic (read: i'm coding this at 5am) we can just kinda guess where we wanna end the previous path. maybe 0.5m before it ends?
 							// if the path is less than 0.5m total then just do nothing, since either 1) we started out close anyways, or 2) we were previously doing this already so just stick to it
 							final double tooFarAway = 1;
-							if (poses.get(poses.size() - 1).getTranslation().getDistance(poses.get(0).getTranslation()) > tooFarAway) {
+							ArcLengthIndex index = ArcLengthIndex.ofPoses(poses);
+							if (index.getTotalLength() > tooFarAway) {
 								System.out.println("far enough away, finding a new target point");
-								// sample it at 0.5m before the end
-								Pose2d last = poses.get(poses.size() - 1);
-								int idx = poses.size() - 1;
-								// iterate from the end until we find a pose 0.5m away
-								for (int i = poses.size() - 2; i >= 0; i--) {
-									if (poses.get(i).getTranslation().getDistance(last.getTranslation()) > tooFarAway) {
-										System.out.println("found the first one that's at the distance limit. idx: " + i + ", pose: " + poses.get(i) + ", poses size: " + poses.size());
-										idx = i;
-										break;
-									}
-								}
+								// sample it at 1m (measured along the path) before the end
+								int idx = Math.min(index.indexAtOrBefore(index.getTotalLength() - tooFarAway), poses.size() - 2);
+								System.out.println("found the first one that's at the distance limit. idx: " + idx + ", pose: " + poses.get(idx) + ", poses size: " + poses.size());
 								Rotation2d slope = Util.slopeAngle(poses.get(idx), poses.get(idx + 1)); // slope of the cut-off area of auto-gen path
 								// with the slope we want to use it to generate a smooth bezier trajectory
 								// note: in a PathPlannerPath the Rotation2d is the heading of the trajectory, NOT of the robot chassis. trajectory heading = the direction of the robot's velocity vector
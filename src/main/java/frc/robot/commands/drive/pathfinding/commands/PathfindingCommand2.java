@@ -10,6 +10,7 @@ import com.pathplanner.lib.controllers.PathFollowingController;
 import com.pathplanner.lib.path.*;
 import com.pathplanner.lib.pathfinding.Pathfinding;
 import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
 import com.pathplanner.lib.util.*;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.hal.HAL;
@@ -19,10 +20,17 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.measure.LinearVelocity;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.Flags;
+import frc.robot.util.ArcLengthIndex;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
@@ -31,6 +39,19 @@ import java.util.function.Supplier;
 public class PathfindingCommand2 extends Command {
     private static int instances = 0;
 
+    /** How long the crossfade from the old trajectory lasts after a replan is swapped in. */
+    private static final double BLEND_DURATION_SECONDS = 0.3;
+
+    /**
+     * Builds trajectories off of the main robot loop. Generating a {@link PathPlannerTrajectory} for a long path can take
+     * longer than a 20ms loop, so execute() only ever swaps in a trajectory that has already been generated here.
+     */
+    private static final ExecutorService trajectoryGenerator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "PathfindingCommand2 Trajectory Thread");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final Timer timer = new Timer();
     public final PathPlannerPath targetPath;
     public Pose2d targetPose;
@@ -46,11 +67,47 @@ public class PathfindingCommand2 extends Command {
 
     public PathPlannerPath currentPath;
     public PathPlannerTrajectory currentTrajectory;
+    /** Arc length index of {@link #currentTrajectory}, for projecting the robot onto it. */
+    public ArcLengthIndex currentTrajectoryIndex;
 
     private double timeOffset = 0;
 
     private boolean finish = false;
 
+    /** The blend from the previous trajectory into {@link #currentTrajectory}, or null if not blending. */
+    private TrajectoryBlend blend;
+
+    /** A trajectory that is currently being generated on {@link #trajectoryGenerator}, or null if none is pending. */
+    private Future<GeneratedTrajectory> pendingTrajectory;
+
+    /**
+     * A path and its trajectory, generated together on the trajectory thread.
+     *
+     * @param path the path received from the pathfinder, or null if the pathfinder had no usable path
+     * @param trajectory the trajectory generated from the path, or null if path is null
+     * @param index the arc length index of the trajectory, or null if path is null
+     */
+    private record GeneratedTrajectory(PathPlannerPath path, PathPlannerTrajectory trajectory, ArcLengthIndex index) {}
+
+    /**
+     * A previously followed trajectory that is being faded out after a replan. For the first
+     * {@link #BLEND_DURATION_SECONDS} after the swap, the target state is a crossfade from the old trajectory to the new one.
+     * This is not a splice: the new trajectory starts from the robot's measured state when the replan was requested, and is
+     * swapped in whenever it finishes generating, so the two generally disagree in position and velocity at the swap. The
+     * crossfade only spreads that difference over the blend instead of stepping the controller's target all at once.
+     *
+     * @param trajectory the trajectory that was being followed before the swap
+     * @param swapTime the time along that trajectory at the swap, in seconds
+     */
+    private record TrajectoryBlend(PathPlannerTrajectory trajectory, double swapTime) {
+        PathPlannerTrajectoryState sample(double time, PathPlannerTrajectoryState newState) {
+            PathPlannerTrajectoryState oldState = trajectory.sample(swapTime + time);
+            // Smoothstep so the blend weight's rate of change is zero at both ends
+            double t = MathUtil.clamp(time / BLEND_DURATION_SECONDS, 0.0, 1.0);
+            return oldState.interpolate(newState, t * t * (3 - 2 * t));
+        }
+    }
+
     /**
      * Constructs a new base pathfinding command that will generate a path towards the given path.
      *
@@ -245,7 +302,10 @@ public class PathfindingCommand2 extends Command {
 
     @Override
     public void initialize() {
+        cancelPendingTrajectory();
         currentTrajectory = null;
+        currentTrajectoryIndex = null;
+        blend = null;
         timeOffset = 0;
         finish = false;
 
@@ -291,74 +351,55 @@ public class PathfindingCommand2 extends Command {
                         .getDistance(currentTrajectory.getEndState().pose.getTranslation())
                         < 2.0;
 
-        if (!skipUpdates && Pathfinding.isNewPathAvailable()) {
-            currentPath = Pathfinding.getCurrentPath(constraints, goalEndState);
+        if (!skipUpdates && pendingTrajectory == null && Pathfinding.isNewPathAvailable()) {
+            // Speeds and rotation are captured now; the time offset is corrected at swap time
+            ChassisSpeeds startSpeeds = currentSpeeds;
+            Rotation2d startRotation = currentPose.getRotation();
+            pendingTrajectory = trajectoryGenerator.submit(() -> {
+                PathPlannerPath path = Pathfinding.getCurrentPath(constraints, goalEndState);
+                if (path == null) {
+                    return new GeneratedTrajectory(null, null, null);
+                }
+                PathPlannerTrajectory trajectory = new PathPlannerTrajectory(path, startSpeeds, startRotation, robotConfig);
+                return new GeneratedTrajectory(path, trajectory, ArcLengthIndex.of(trajectory));
+            });
+        }
+
+        if (blend != null && timer.get() >= BLEND_DURATION_SECONDS) {
+            blend = null;
+        }
 
-            if (currentPath != null) {
-                currentTrajectory =
-                        new PathPlannerTrajectory(
-                                currentPath, currentSpeeds, currentPose.getRotation(), robotConfig);
-                if (!Double.isFinite(currentTrajectory.getTotalTimeSeconds())) {
+        // Hold on to a finished replan until any blend in progress is done, so blends never stack
+        if (pendingTrajectory != null && pendingTrajectory.isDone() && blend == null) {
+            GeneratedTrajectory generated = takePendingTrajectory();
+
+            if (generated != null && generated.path() != null) {
+                if (!Double.isFinite(generated.trajectory().getTotalTimeSeconds())) {
                     finish = true;
                     return;
                 }
 
-                // Find the two closest states in front of and behind robot
-                int closestState1Idx = 0;
-                int closestState2Idx = 1;
-                while (closestState2Idx < currentTrajectory.getStates().size() - 1) {
-                    double closest2Dist =
-                            currentTrajectory
-                                    .getState(closestState2Idx)
-                                    .pose
-                                    .getTranslation()
-                                    .getDistance(currentPose.getTranslation());
-                    double nextDist =
-                            currentTrajectory
-                                    .getState(closestState2Idx + 1)
-                                    .pose
-                                    .getTranslation()
-                                    .getDistance(currentPose.getTranslation());
-                    if (nextDist < closest2Dist) {
-                        closestState1Idx++;
-                        closestState2Idx++;
-                    } else {
-                        break;
-                    }
+                if (Flags.DriveTrain.ENABLE_PATHFINDING_TRAJECTORY_BLENDING && currentTrajectory != null) {
+                    blend = new TrajectoryBlend(currentTrajectory, timer.get() + timeOffset);
                 }
 
-                // Use the closest 2 states to interpolate what the time offset should be
-                // This will account for the delay in pathfinding
-                var closestState1 = currentTrajectory.getState(closestState1Idx);
-                var closestState2 = currentTrajectory.getState(closestState2Idx);
-
-                double d =
-                        closestState1.pose.getTranslation().getDistance(closestState2.pose.getTranslation());
-                double t =
-                        (currentPose.getTranslation().getDistance(closestState1.pose.getTranslation())) / d;
-                t = MathUtil.clamp(t, 0.0, 1.0);
-
-                timeOffset = MathUtil.interpolate(closestState1.timeSeconds, closestState2.timeSeconds, t);
-
-                // If the robot is stationary and at the start of the path, set the time offset to the next
-                // loop
-                // This can prevent an issue where the robot will remain stationary if new paths come in
-                // every loop
-                if (timeOffset <= 0.02
-                        && Math.hypot(currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond) < 0.1) {
-                    timeOffset = 0.02;
-                }
+                currentPath = generated.path();
+                currentTrajectory = generated.trajectory();
+                currentTrajectoryIndex = generated.index();
+                // The robot kept moving while the trajectory was generated, so find where it is on the trajectory now
+                timeOffset = computeTimeOffset(currentTrajectoryIndex, currentPose, currentSpeeds);
 
                 PathPlannerLogging.logActivePath(currentPath);
                 PPLibTelemetry.setCurrentPath(currentPath);
             }
 
+            // like PathPlanner's own pathfinding command, restart the timer for every new path, even one that couldn't be generated
             timer.reset();
             timer.start();
         }
 
         if (currentTrajectory != null) {
-            var targetState = currentTrajectory.sample(timer.get() + timeOffset);
+            var targetState = sampleTarget(timer.get());
 
             ChassisSpeeds targetSpeeds =
                     controller.calculateRobotRelativeSpeeds(currentPose, targetState);
@@ -382,6 +423,69 @@ public class PathfindingCommand2 extends Command {
         }
     }
 
+    /**
+     * Samples the state the robot should be at, blending from the previous trajectory if a replan was recently swapped in.
+     *
+     * @param time time since the current trajectory was swapped in, in seconds
+     * @return the target state
+     */
+    private PathPlannerTrajectoryState sampleTarget(double time) {
+        PathPlannerTrajectoryState state = currentTrajectory.sample(time + timeOffset);
+        if (blend != null && time < BLEND_DURATION_SECONDS) {
+            state = blend.sample(time, state);
+        }
+        return state;
+    }
+
+    /**
+     * Finds the time along a trajectory that the robot is currently closest to.
+     *
+     * @param index the arc length index of the trajectory to project the robot onto
+     * @param currentPose the robot's current pose
+     * @param currentSpeeds the robot's current robot relative speeds
+     * @return the time offset into the trajectory to start following from
+     */
+    private static double computeTimeOffset(ArcLengthIndex index, Pose2d currentPose, ChassisSpeeds currentSpeeds) {
+        // Project the robot onto the trajectory
+        // This will account for the delay in pathfinding
+        double timeOffset = index.project(currentPose.getTranslation()).time();
+
+        // If the robot is stationary and at the start of the path, set the time offset to the next
+        // loop
+        // This can prevent an issue where the robot will remain stationary if new paths come in
+        // every loop
+        if (timeOffset <= 0.02
+                && Math.hypot(currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond) < 0.1) {
+            timeOffset = 0.02;
+        }
+        return timeOffset;
+    }
+
+    /**
+     * Takes the result of the finished pending trajectory and clears it.
+     *
+     * @return the generated trajectory, or null if generation failed
+     */
+    private GeneratedTrajectory takePendingTrajectory() {
+        Future<GeneratedTrajectory> finished = pendingTrajectory;
+        pendingTrajectory = null;
+        try {
+            return finished.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            DriverStation.reportError("Failed to generate pathfinding trajectory: " + e.getCause(), e.getCause().getStackTrace());
+        }
+        return null;
+    }
+
+    private void cancelPendingTrajectory() {
+        if (pendingTrajectory != null) {
+            pendingTrajectory.cancel(false);
+            pendingTrajectory = null;
+        }
+    }
+
     @Override
     public boolean isFinished() {
         if (finish) {
@@ -410,6 +514,7 @@ public class PathfindingCommand2 extends Command {
     @Override
     public void end(boolean interrupted) {
         timer.stop();
+        cancelPendingTrajectory();
 
         // Only output 0 speeds when ending a path that is supposed to stop, this allows interrupting
         // the command to smoothly transition into some auto-alignment routine
@@ -54,6 +54,7 @@ public class LocalADStar2 implements Pathfinder2 {
 	private final Set<GridPosition> dynamicObstacles = new HashSet<>();
 	private final Set<GridPosition> requestObstacles = new HashSet<>();
 	private final Thread planningThread;
+	private volatile boolean running = true;
 	private final ReadWriteLock pathLock = new ReentrantReadWriteLock();
 	private final ReadWriteLock requestLock = new ReentrantReadWriteLock();
 	private double fieldLength = 16.54;
@@ -162,11 +163,7 @@ public class LocalADStar2 implements Pathfinder2 {
 	}
 	
 	public PathPlannerPath getCurrentPathWithoutUpdate(PathConstraints constraints, GoalEndState goalEndState) {
-		List<Waypoint> waypoints;
-		
-		pathLock.readLock().lock();
-		waypoints = new ArrayList<>(currentWaypoints);
-		pathLock.readLock().unlock();
+		List<Waypoint> waypoints = getCurrentWaypoints();
 		
 		if (waypoints.size() < 2) {
 			// Not enough points. Something got borked somewhere
@@ -181,6 +178,29 @@ public class LocalADStar2 implements Pathfinder2 {
 		);
 	}
 	
+	/**
+	 * Get the waypoints of the most recently calculated path, without building a {@link PathPlannerPath} from them.
+	 *
+	 * @return A copy of the current waypoints. Has fewer than 2 entries if there is no usable path.
+	 */
+	public List<Waypoint> getCurrentWaypoints() {
+		pathLock.readLock().lock();
+		List<Waypoint> waypoints = new ArrayList<>(currentWaypoints);
+		pathLock.readLock().unlock();
+		return waypoints;
+	}
+	
+	/**
+	 * Get the waypoints of the most recently calculated path, and mark it as retrieved.
+	 *
+	 * @return A copy of the current waypoints
+	 * @see #getCurrentPath(PathConstraints, GoalEndState)
+	 */
+	public List<Waypoint> takeCurrentWaypoints() {
+		newPathAvailable = false;
+		return getCurrentWaypoints();
+	}
+	
 	/**
 	 * Set the start position to pathfind from
 	 *
@@ -235,6 +255,17 @@ public class LocalADStar2 implements Pathfinder2 {
 	 */
 	@Override
 	public void setDynamicObstacles(
+		List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+		updateDynamicObstacles(obs, currentRobotPos);
+	}
+	
+	/**
+	 * Same as {@link #setDynamicObstacles(List, Translation2d)}, but says whether the current path has to be replanned.
+	 *
+	 * @return True if the new obstacles block the current path, so a new one is being planned. False if the current path still
+	 * stands, in which case no new path will come from this update.
+	 */
+	public boolean updateDynamicObstacles(
 		List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
 		Set<GridPosition> newObs = new HashSet<>();
 		
@@ -277,11 +308,20 @@ public class LocalADStar2 implements Pathfinder2 {
 			setStartPosition(currentRobotPos);
 			setGoalPosition(requestRealGoalPos);
 		}
+		return recalculate;
+	}
+	
+	/**
+	 * Stop the planning thread. The pathfinder can't be used after this.
+	 */
+	public void stop() {
+		running = false;
+		planningThread.interrupt();
 	}
 	
 	@SuppressWarnings("BusyWait")
 	private void runThread() {
-		while (true) {
+		while (running) {
 			try {
 				requestLock.readLock().lock();
 				boolean reset = requestReset;
@@ -311,7 +351,8 @@ public class LocalADStar2 implements Pathfinder2 {
 					try {
 						Thread.sleep(10);
 					} catch (InterruptedException e) {
-						throw new RuntimeException(e);
+						// stopped
+						return;
 					}
 				}
 			} catch (Exception e) {
@@ -0,0 +1,226 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Standalone planning service that answers {@link RemotePathfinder} requests over NetworkTables, running AD* with a
+ * {@link LocalADStar2}.
+ * <p>
+ * Meant to run on a coprocessor: build the robot jar and run this class's {@link #main(String[])} with the robot's
+ * address (or team number) as the only argument, from a directory containing {@code src/main/deploy/pathplanner/navgrid.json}.
+ * In simulation it can instead be started in-process with {@link #PathfindingService(NetworkTableInstance)} on the
+ * default instance as a stand-in, so the whole round trip can be tested on one machine.
+ * <p>
+ * Protocol (all in the {@value #TABLE_NAME} table):
+ * <pre>
+ * request:  [id, startX, startY, goalX, goalY, robotX, robotY, (obstacleCornerAX, obstacleCornerAY, obstacleCornerBX, obstacleCornerBY)*]
+ * response: [id, (prevControlX, prevControlY, anchorX, anchorY, nextControlX, nextControlY)*]
+ * </pre>
+ * Missing control points are sent as NaN. The service may answer the same request id more than once as AD* improves
+ * the path. A request that doesn't move the goal, and doesn't move the obstacles onto the current path, is answered right
+ * away with the last path, since the planner won't replan for it.
+ */
+public class PathfindingService {
+	public static final String TABLE_NAME = "pathfinding_service";
+	public static final String REQUEST_TOPIC = "request";
+	public static final String RESPONSE_TOPIC = "response";
+
+	private static final int REQUEST_HEADER_LENGTH = 7;
+	private static final int DOUBLES_PER_OBSTACLE = 4;
+	private static final int DOUBLES_PER_WAYPOINT = 6;
+	private static final long POLL_PERIOD_MS = 5;
+
+	private final NetworkTableInstance inst;
+	private final DoubleArraySubscriber requestSub;
+	private final DoubleArrayPublisher responsePub;
+	private final LocalADStar2 planner = new LocalADStar2();
+	private final Thread serviceThread;
+
+	private long currentId = -1;
+	private Translation2d lastGoal = null;
+	private double[] lastObstacles = new double[0];
+	/** The last path sent, while it's still to the current goal and around the current obstacles. */
+	private List<Waypoint> lastWaypoints = null;
+
+	/**
+	 * Start answering requests on the given instance, in a background thread.
+	 *
+	 * @param inst The NetworkTables instance to talk to the robot through
+	 */
+	public PathfindingService(NetworkTableInstance inst) {
+		this.inst = inst;
+		NetworkTable table = inst.getTable(TABLE_NAME);
+		requestSub = table.getDoubleArrayTopic(REQUEST_TOPIC).subscribe(new double[0], PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(8));
+		responsePub = table.getDoubleArrayTopic(RESPONSE_TOPIC).publish(PubSubOption.keepDuplicates(true));
+
+		serviceThread = new Thread(this::runThread);
+		serviceThread.setDaemon(true);
+		serviceThread.setName("Pathfinding Service Thread");
+		serviceThread.start();
+	}
+
+	/**
+	 * Runs the service as its own process, connecting to the robot as a NetworkTables client.
+	 *
+	 * @param args The robot's address or team number. Defaults to localhost (a simulated robot on this machine).
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		String server = args.length > 0 ? args[0] : "localhost";
+
+		NetworkTableInstance inst = NetworkTableInstance.getDefault();
+		inst.startClient4("pathfinding-service");
+		if (server.matches("\\d+")) {
+			inst.setServerTeam(Integer.parseInt(server));
+		} else {
+			inst.setServer(server);
+		}
+
+		PathfindingService service = new PathfindingService(inst);
+		System.out.println("Pathfinding service connecting to " + server);
+		service.serviceThread.join();
+	}
+
+	private void runThread() {
+		while (true) {
+			TimestampedDoubleArray[] requests = requestSub.readQueue();
+			if (requests.length > 0) {
+				// only the newest request matters, older ones have been superseded
+				handleRequest(requests[requests.length - 1].value);
+			}
+
+			if (currentId >= 0 && planner.isNewPathAvailable()) {
+				List<Waypoint> waypoints = planner.takeCurrentWaypoints();
+				if (waypoints.size() >= 2) {
+					lastWaypoints = waypoints;
+					responsePub.set(encodeResponse(currentId, waypoints));
+					inst.flush();
+				}
+			}
+
+			try {
+				Thread.sleep(POLL_PERIOD_MS);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private void handleRequest(double[] request) {
+		if (request.length < REQUEST_HEADER_LENGTH || (request.length - REQUEST_HEADER_LENGTH) % DOUBLES_PER_OBSTACLE != 0) {
+			return;
+		}
+
+		Translation2d start = new Translation2d(request[1], request[2]);
+		Translation2d goal = new Translation2d(request[3], request[4]);
+		Translation2d robotPos = new Translation2d(request[5], request[6]);
+		double[] obstacles = Arrays.copyOfRange(request, REQUEST_HEADER_LENGTH, request.length);
+
+		if (!Arrays.equals(obstacles, lastObstacles)) {
+			lastObstacles = obstacles;
+			// obstacles that miss the current path don't make the planner replan, so that path is still the answer
+			if (planner.updateDynamicObstacles(decodeObstacles(obstacles), robotPos)) {
+				lastWaypoints = null;
+			}
+		}
+		planner.setStartPosition(start);
+		if (!goal.equals(lastGoal)) {
+			// setting the goal forces a full replan, so only do it when it actually moved
+			lastGoal = goal;
+			lastWaypoints = null;
+			planner.setGoalPosition(goal);
+		}
+		currentId = (long) request[0];
+
+		if (lastWaypoints != null) {
+			// the planner won't necessarily replan for this request, so answer it with the path it already has; a new start alone doesn't
+			// invalidate that path (RemotePathfinder keeps using it too), and a replan from the new start still follows under the same id
+			responsePub.set(encodeResponse(currentId, lastWaypoints));
+			inst.flush();
+		}
+	}
+
+	static double[] encodeRequest(long id, Translation2d start, Translation2d goal, Translation2d robotPos, List<Pair<Translation2d, Translation2d>> obstacles) {
+		double[] request = new double[REQUEST_HEADER_LENGTH + obstacles.size() * DOUBLES_PER_OBSTACLE];
+		request[0] = id;
+		request[1] = start.getX();
+		request[2] = start.getY();
+		request[3] = goal.getX();
+		request[4] = goal.getY();
+		request[5] = robotPos.getX();
+		request[6] = robotPos.getY();
+		int i = REQUEST_HEADER_LENGTH;
+		for (Pair<Translation2d, Translation2d> obstacle : obstacles) {
+			request[i++] = obstacle.getFirst().getX();
+			request[i++] = obstacle.getFirst().getY();
+			request[i++] = obstacle.getSecond().getX();
+			request[i++] = obstacle.getSecond().getY();
+		}
+		return request;
+	}
+
+	private static List<Pair<Translation2d, Translation2d>> decodeObstacles(double[] obstacles) {
+		List<Pair<Translation2d, Translation2d>> decoded = new ArrayList<>(obstacles.length / DOUBLES_PER_OBSTACLE);
+		for (int i = 0; i < obstacles.length; i += DOUBLES_PER_OBSTACLE) {
+			decoded.add(Pair.of(
+				new Translation2d(obstacles[i], obstacles[i + 1]),
+				new Translation2d(obstacles[i + 2], obstacles[i + 3])
+			));
+		}
+		return decoded;
+	}
+
+	static double[] encodeResponse(long id, List<Waypoint> waypoints) {
+		double[] response = new double[1 + waypoints.size() * DOUBLES_PER_WAYPOINT];
+		response[0] = id;
+		int i = 1;
+		for (Waypoint waypoint : waypoints) {
+			i = putTranslation(response, i, waypoint.prevControl());
+			i = putTranslation(response, i, waypoint.anchor());
+			i = putTranslation(response, i, waypoint.nextControl());
+		}
+		return response;
+	}
+
+	/**
+	 * @return The waypoints in a response, or null if the response is malformed.
+	 */
+	static List<Waypoint> decodeResponseWaypoints(double[] response) {
+		if (response.length < 1 || (response.length - 1) % DOUBLES_PER_WAYPOINT != 0) {
+			return null;
+		}
+		List<Waypoint> waypoints = new ArrayList<>((response.length - 1) / DOUBLES_PER_WAYPOINT);
+		for (int i = 1; i < response.length; i += DOUBLES_PER_WAYPOINT) {
+			waypoints.add(new Waypoint(
+				getTranslation(response, i),
+				getTranslation(response, i + 2),
+				getTranslation(response, i + 4)
+			));
+		}
+		return waypoints;
+	}
+
+	private static int putTranslation(double[] array, int i, Translation2d translation) {
+		array[i] = translation == null ? Double.NaN : translation.getX();
+		array[i + 1] = translation == null ? Double.NaN : translation.getY();
+		return i + 2;
+	}
+
+	private static Translation2d getTranslation(double[] array, int i) {
+		if (Double.isNaN(array[i]) || Double.isNaN(array[i + 1])) {
+			return null;
+		}
+		return new Translation2d(array[i], array[i + 1]);
+	}
+}
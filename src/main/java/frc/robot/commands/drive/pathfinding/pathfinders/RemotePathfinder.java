@@ -0,0 +1,231 @@
+package frc.robot.commands.drive.pathfinding.pathfinders;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.commands.drive.pathfinding.Pathfinder2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pathfinder that offloads planning to a {@link PathfindingService} (usually on a coprocessor) over NetworkTables.
+ * <p>
+ * Every start/goal/obstacle change is sent to the service as a new request. If the service stops making progress on
+ * requests for longer than {@link #RESPONSE_DEADLINE_SECONDS}, planning switches over to a {@link LocalADStar2} on the
+ * robot, and switches back as soon as the service answers the latest request again.
+ * <p>
+ * All methods are synchronized since paths are retrieved off the main thread by
+ * {@link frc.robot.commands.drive.pathfinding.commands.PathfindingCommand2}.
+ */
+public class RemotePathfinder implements Pathfinder2 {
+	public static final double RESPONSE_DEADLINE_SECONDS = 0.25;
+
+	private final NetworkTableInstance inst;
+	private final DoubleArrayPublisher requestPub;
+	private final DoubleArraySubscriber responseSub;
+	private final BooleanPublisher usingFallbackPub;
+	/** Only built while it's needed, since it runs its own planning thread. */
+	private LocalADStar2 fallback = null;
+
+	private Translation2d start = Translation2d.kZero;
+	private Translation2d goal = Translation2d.kZero;
+	private Translation2d robotPos = Translation2d.kZero;
+	private List<Pair<Translation2d, Translation2d>> obstacles = List.of();
+
+	private long lastRequestId = 0;
+	/** Responses to requests older than this were planned to a different goal or around different obstacles. */
+	private long firstValidRequestId = 0;
+	private long lastResponseId = 0;
+	/** When the service was last waited on without making progress, or NaN if nothing is pending. */
+	private double pendingSince = Double.NaN;
+	private boolean usingFallback = false;
+
+	private List<Waypoint> currentWaypoints = List.of();
+	private boolean newPathAvailable = false;
+
+	/**
+	 * Create a pathfinder that talks to a planning service through the default NetworkTables instance
+	 */
+	public RemotePathfinder() {
+		this(NetworkTableInstance.getDefault());
+	}
+
+	/**
+	 * Create a pathfinder that talks to a planning service through the given NetworkTables instance
+	 *
+	 * @param inst The instance the service is reachable through
+	 */
+	public RemotePathfinder(NetworkTableInstance inst) {
+		this.inst = inst;
+		NetworkTable table = inst.getTable(PathfindingService.TABLE_NAME);
+		requestPub = table.getDoubleArrayTopic(PathfindingService.REQUEST_TOPIC).publish(PubSubOption.keepDuplicates(true));
+		responseSub = table.getDoubleArrayTopic(PathfindingService.RESPONSE_TOPIC).subscribe(new double[0], PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(8));
+		usingFallbackPub = table.getBooleanTopic("using_fallback").publish();
+		usingFallbackPub.set(false);
+	}
+
+	/**
+	 * Get if a new path has been calculated since the last time a path was retrieved
+	 *
+	 * @return True if a new path is available
+	 */
+	@Override
+	public synchronized boolean isNewPathAvailable() {
+		pollResponses();
+		checkDeadline();
+		return usingFallback ? fallback.isNewPathAvailable() : newPathAvailable;
+	}
+
+	/**
+	 * Get the most recently calculated path
+	 *
+	 * @param constraints  The path constraints to use when creating the path
+	 * @param goalEndState The goal end state to use when creating the path
+	 * @return The PathPlannerPath created from the points calculated by the pathfinder
+	 */
+	@Override
+	public synchronized PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
+		if (usingFallback) {
+			return fallback.getCurrentPath(constraints, goalEndState);
+		}
+		newPathAvailable = false;
+		return getCurrentPathWithoutUpdate(constraints, goalEndState);
+	}
+
+	@Override
+	public synchronized PathPlannerPath getCurrentPathWithoutUpdate(PathConstraints constraints, GoalEndState goalEndState) {
+		if (usingFallback) {
+			return fallback.getCurrentPathWithoutUpdate(constraints, goalEndState);
+		}
+		if (currentWaypoints.size() < 2) {
+			return null;
+		}
+		return new PathPlannerPath(new ArrayList<>(currentWaypoints), constraints, null, goalEndState);
+	}
+
+	/**
+	 * Set the start position to pathfind from
+	 *
+	 * @param startPosition Start position on the field
+	 */
+	@Override
+	public synchronized void setStartPosition(Translation2d startPosition) {
+		if (startPosition.equals(start)) {
+			return;
+		}
+		start = startPosition;
+		sendRequest(false);
+		if (usingFallback) {
+			fallback.setStartPosition(startPosition);
+		}
+	}
+
+	/**
+	 * Set the goal position to pathfind to
+	 *
+	 * @param goalPosition Goal position on the field
+	 */
+	@Override
+	public synchronized void setGoalPosition(Translation2d goalPosition) {
+		goal = goalPosition;
+		sendRequest(true);
+		if (usingFallback) {
+			fallback.setGoalPosition(goalPosition);
+		}
+	}
+
+	/**
+	 * Set the dynamic obstacles that should be avoided while pathfinding.
+	 *
+	 * @param obs             A List of Translation2d pairs representing obstacles. Each Translation2d represents
+	 *                        opposite corners of a bounding box.
+	 * @param currentRobotPos The current position of the robot
+	 */
+	@Override
+	public synchronized void setDynamicObstacles(List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+		obstacles = List.copyOf(obs);
+		robotPos = currentRobotPos;
+		// like AD*, the current path stays valid unless the new obstacles block it, in which case the service replans and answers
+		// this request with the new path
+		sendRequest(false);
+		if (usingFallback) {
+			fallback.setDynamicObstacles(obs, currentRobotPos);
+		}
+	}
+
+	private void sendRequest(boolean invalidatesOldPaths) {
+		lastRequestId++;
+		if (invalidatesOldPaths) {
+			firstValidRequestId = lastRequestId;
+			newPathAvailable = false;
+		}
+		if (Double.isNaN(pendingSince)) {
+			pendingSince = Timer.getFPGATimestamp();
+		}
+		requestPub.set(PathfindingService.encodeRequest(lastRequestId, start, goal, robotPos, obstacles));
+		inst.flush();
+	}
+
+	private void pollResponses() {
+		for (TimestampedDoubleArray response : responseSub.readQueue()) {
+			if (response.value.length < 1) {
+				continue;
+			}
+			long id = (long) response.value[0];
+			// ids past the latest request are left over from before the robot code restarted
+			if (id < firstValidRequestId || id < lastResponseId || id > lastRequestId) {
+				continue;
+			}
+			List<Waypoint> waypoints = PathfindingService.decodeResponseWaypoints(response.value);
+			if (waypoints == null || waypoints.size() < 2) {
+				continue;
+			}
+
+			lastResponseId = id;
+			// requests that didn't need a replan are answered with the path already here, which isn't new
+			if (!waypoints.equals(currentWaypoints)) {
+				currentWaypoints = waypoints;
+				newPathAvailable = true;
+			}
+			pendingSince = id == lastRequestId ? Double.NaN : Timer.getFPGATimestamp();
+
+			if (usingFallback && id == lastRequestId) {
+				usingFallback = false;
+				usingFallbackPub.set(false);
+				fallback.stop();
+				fallback = null;
+				// the command has been following the fallback's paths, so the service's is new to it
+				newPathAvailable = true;
+				DriverStation.reportWarning("Pathfinding service is responding again, switching back to it", false);
+			}
+		}
+	}
+
+	private void checkDeadline() {
+		if (usingFallback || Double.isNaN(pendingSince) || Timer.getFPGATimestamp() - pendingSince < RESPONSE_DEADLINE_SECONDS) {
+			return;
+		}
+
+		usingFallback = true;
+		usingFallbackPub.set(true);
+		DriverStation.reportWarning("Pathfinding service did not respond within " + RESPONSE_DEADLINE_SECONDS + "s, planning on the robot instead", false);
+
+		fallback = new LocalADStar2();
+		fallback.setDynamicObstacles(obstacles, robotPos);
+		fallback.setStartPosition(start);
+		fallback.setGoalPosition(goal);
+	}
+}
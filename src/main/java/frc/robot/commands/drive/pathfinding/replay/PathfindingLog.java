@@ -0,0 +1,173 @@
+package frc.robot.commands.drive.pathfinding.replay;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary format of a recorded pathfinding session, written by {@link RecordingPathfinder} and read by
+ * {@link PathfindingReplay}.
+ * <p>
+ * A log is a header ({@link #MAGIC}, {@link #VERSION}) followed by events, each of which is a type byte, a timestamp in
+ * seconds, and a type specific payload. All values are big-endian, as written by {@link DataOutputStream}.
+ */
+public final class PathfindingLog {
+	static final int MAGIC = 0x50464C47; // "PFLG"
+	static final short VERSION = 1;
+
+	static final byte SET_START = 1;
+	static final byte SET_GOAL = 2;
+	static final byte SET_OBSTACLES = 3;
+	static final byte GET_PATH = 4;
+	static final byte NEW_PATH_AVAILABLE = 5;
+
+	public sealed interface Event permits SetStart, SetGoal, SetObstacles, GetPath, NewPathAvailable {
+		double timestamp();
+	}
+
+	public record SetStart(double timestamp, Translation2d position) implements Event {
+	}
+
+	public record SetGoal(double timestamp, Translation2d position) implements Event {
+	}
+
+	public record SetObstacles(double timestamp, List<Pair<Translation2d, Translation2d>> obstacles, Translation2d robotPos) implements Event {
+	}
+
+	/**
+	 * @param callSeconds How long the pathfinder took to return the path
+	 * @param pathLength  Length of the returned path in meters, or NaN if the pathfinder returned null
+	 */
+	public record GetPath(double timestamp, PathConstraints constraints, GoalEndState goalEndState, double callSeconds, double pathLength) implements Event {
+	}
+
+	/**
+	 * The pathfinder started reporting that a new path is available.
+	 */
+	public record NewPathAvailable(double timestamp) implements Event {
+	}
+
+	private PathfindingLog() {
+	}
+
+	static void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+	}
+
+	static void writeTranslation(DataOutputStream out, Translation2d translation) throws IOException {
+		out.writeDouble(translation.getX());
+		out.writeDouble(translation.getY());
+	}
+
+	static void writeConstraints(DataOutputStream out, PathConstraints constraints) throws IOException {
+		out.writeDouble(constraints.maxVelocityMPS());
+		out.writeDouble(constraints.maxAccelerationMPSSq());
+		out.writeDouble(constraints.maxAngularVelocityRadPerSec());
+		out.writeDouble(constraints.maxAngularAccelerationRadPerSecSq());
+		out.writeDouble(constraints.nominalVoltageVolts());
+		out.writeBoolean(constraints.unlimited());
+	}
+
+	static void writeGoalEndState(DataOutputStream out, GoalEndState goalEndState) throws IOException {
+		out.writeDouble(goalEndState.velocityMPS());
+		out.writeDouble(goalEndState.rotation().getRadians());
+	}
+
+	/**
+	 * Reads every event in a log file.
+	 *
+	 * @param file The log file
+	 * @return The events in the order they were recorded. A truncated final event (e.g. from the robot losing power) is
+	 * dropped.
+	 * @throws IOException if the file can't be read or isn't a pathfinding log
+	 */
+	public static List<Event> read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not a pathfinding log");
+			}
+			short version = in.readShort();
+			if (version != VERSION) {
+				throw new IOException(file + " has unsupported pathfinding log version " + version);
+			}
+
+			List<Event> events = new ArrayList<>();
+			while (true) {
+				int type = in.read();
+				if (type < 0) {
+					return events;
+				}
+				try {
+					events.add(readEvent(in, (byte) type));
+				} catch (EOFException e) {
+					return events;
+				}
+			}
+		}
+	}
+
+	private static Event readEvent(DataInputStream in, byte type) throws IOException {
+		double timestamp = in.readDouble();
+		switch (type) {
+			case SET_START:
+				return new SetStart(timestamp, readTranslation(in));
+			case SET_GOAL:
+				return new SetGoal(timestamp, readTranslation(in));
+			case SET_OBSTACLES: {
+				Translation2d robotPos = readTranslation(in);
+				int count = in.readInt();
+				List<Pair<Translation2d, Translation2d>> obstacles = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					obstacles.add(Pair.of(readTranslation(in), readTranslation(in)));
+				}
+				return new SetObstacles(timestamp, obstacles, robotPos);
+			}
+			case GET_PATH: {
+				PathConstraints constraints = new PathConstraints(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(), in.readBoolean());
+				GoalEndState goalEndState = new GoalEndState(in.readDouble(), Rotation2d.fromRadians(in.readDouble()));
+				return new GetPath(timestamp, constraints, goalEndState, in.readDouble(), in.readDouble());
+			}
+			case NEW_PATH_AVAILABLE:
+				return new NewPathAvailable(timestamp);
+			default:
+				throw new IOException("Unknown pathfinding log event type " + type);
+		}
+	}
+
+	private static Translation2d readTranslation(DataInputStream in) throws IOException {
+		return new Translation2d(in.readDouble(), in.readDouble());
+	}
+
+	/**
+	 * The cost used to compare paths between planners: their length along the generated path poses.
+	 *
+	 * @param path A path, possibly null
+	 * @return The length of the path in meters, or NaN if there is no path
+	 */
+	public static double pathLength(PathPlannerPath path) {
+		if (path == null) {
+			return Double.NaN;
+		}
+		List<Pose2d> poses = path.getPathPoses();
+		double length = 0;
+		for (int i = 1; i < poses.size(); i++) {
+			length += poses.get(i).getTranslation().getDistance(poses.get(i - 1).getTranslation());
+		}
+		return length;
+	}
+}
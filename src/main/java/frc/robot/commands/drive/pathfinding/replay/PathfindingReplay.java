@@ -0,0 +1,218 @@
+package frc.robot.commands.drive.pathfinding.replay;
+
+import com.pathplanner.lib.path.PathPlannerPath;
+import frc.robot.commands.drive.pathfinding.Pathfinder2;
+import frc.robot.commands.drive.pathfinding.pathfinders.LocalADStar2;
+import frc.robot.commands.drive.pathfinding.replay.PathfindingLog.Event;
+import frc.robot.commands.drive.pathfinding.replay.PathfindingLog.GetPath;
+import frc.robot.commands.drive.pathfinding.replay.PathfindingLog.NewPathAvailable;
+import frc.robot.commands.drive.pathfinding.replay.PathfindingLog.SetGoal;
+import frc.robot.commands.drive.pathfinding.replay.PathfindingLog.SetObstacles;
+import frc.robot.commands.drive.pathfinding.replay.PathfindingLog.SetStart;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Desktop runner that feeds a recorded {@link PathfindingLog} into a pathfinder and compares the results with what was
+ * recorded on the robot.
+ * <p>
+ * Usage: {@code PathfindingReplay <log file> [pathfinder class] [--max-speed]}. The pathfinder class must implement
+ * {@link Pathfinder2} and have a no-argument constructor; it defaults to {@link LocalADStar2}. Run from the project
+ * directory so the navgrid in src/main/deploy is found.
+ * <p>
+ * At original speed, calls are made at the same relative times they were recorded at. At max speed, calls are made
+ * back to back, except that before each path retrieval the runner waits (up to {@link #MAX_PATH_WAIT_SECONDS}) for the
+ * pathfinder to have a path ready.
+ * <p>
+ * Latency is measured from the most recent start/goal/obstacle change to the pathfinder reporting a new path. Path cost
+ * is the length of each retrieved path.
+ */
+public final class PathfindingReplay {
+	private static final double MAX_PATH_WAIT_SECONDS = 2.0;
+	private static final long POLL_PERIOD_NANOS = 1_000_000;
+
+	private final Pathfinder2 pathfinder;
+	private final boolean maxSpeed;
+
+	private final List<Double> recordedLatencies = new ArrayList<>();
+	private final List<Double> replayedLatencies = new ArrayList<>();
+	private final List<Double> costDifferences = new ArrayList<>();
+	private final List<Double> callTimes = new ArrayList<>();
+	private int pathCount = 0;
+	private int missingPaths = 0;
+	private int extraPaths = 0;
+
+	private double lastReplayRequestTime = Double.NaN;
+	private boolean lastReplayAvailable = false;
+
+	private PathfindingReplay(Pathfinder2 pathfinder, boolean maxSpeed) {
+		this.pathfinder = pathfinder;
+		this.maxSpeed = maxSpeed;
+	}
+
+	public static void main(String[] args) throws IOException, ReflectiveOperationException {
+		if (args.length < 1) {
+			System.err.println("Usage: PathfindingReplay <log file> [pathfinder class] [--max-speed]");
+			System.exit(1);
+		}
+
+		File logFile = new File(args[0]);
+		String pathfinderClass = LocalADStar2.class.getName();
+		boolean maxSpeed = false;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--max-speed")) {
+				maxSpeed = true;
+			} else {
+				pathfinderClass = args[i];
+			}
+		}
+
+		List<Event> events = PathfindingLog.read(logFile);
+		Pathfinder2 pathfinder = (Pathfinder2) Class.forName(pathfinderClass).getDeclaredConstructor().newInstance();
+		System.out.printf("Replaying %d events from %s into %s at %s%n", events.size(), logFile, pathfinderClass, maxSpeed ? "max speed" : "original speed");
+
+		PathfindingReplay replay = new PathfindingReplay(pathfinder, maxSpeed);
+		replay.measureRecordedLatencies(events);
+		long startNanos = System.nanoTime();
+		replay.run(events);
+		replay.printReport((System.nanoTime() - startNanos) / 1e9, events);
+	}
+
+	private void measureRecordedLatencies(List<Event> events) {
+		double lastRequestTime = Double.NaN;
+		for (Event event : events) {
+			if (isRequest(event)) {
+				lastRequestTime = event.timestamp();
+			} else if (event instanceof NewPathAvailable && !Double.isNaN(lastRequestTime)) {
+				recordedLatencies.add(event.timestamp() - lastRequestTime);
+				lastRequestTime = Double.NaN;
+			}
+		}
+	}
+
+	private void run(List<Event> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+		double logStart = events.get(0).timestamp();
+		long wallStart = System.nanoTime();
+
+		for (Event event : events) {
+			if (!maxSpeed) {
+				long dueNanos = wallStart + (long) ((event.timestamp() - logStart) * 1e9);
+				while (System.nanoTime() < dueNanos) {
+					pollAvailability();
+					sleepUntil(Math.min(dueNanos, System.nanoTime() + POLL_PERIOD_NANOS));
+				}
+			}
+
+			if (event instanceof SetStart start) {
+				pathfinder.setStartPosition(start.position());
+			} else if (event instanceof SetGoal goal) {
+				pathfinder.setGoalPosition(goal.position());
+			} else if (event instanceof SetObstacles obstacles) {
+				pathfinder.setDynamicObstacles(obstacles.obstacles(), obstacles.robotPos());
+			} else if (event instanceof GetPath getPath) {
+				replayGetPath(getPath);
+				continue;
+			} else {
+				// NewPathAvailable is an observation of the recorded pathfinder, not a call to replay
+				continue;
+			}
+			lastReplayRequestTime = now();
+			lastReplayAvailable = false;
+		}
+	}
+
+	private void replayGetPath(GetPath recorded) {
+		if (maxSpeed) {
+			double deadline = now() + MAX_PATH_WAIT_SECONDS;
+			while (!pollAvailability() && now() < deadline) {
+				sleepUntil(System.nanoTime() + POLL_PERIOD_NANOS);
+			}
+		} else {
+			pollAvailability();
+		}
+
+		double start = now();
+		PathPlannerPath path = pathfinder.getCurrentPath(recorded.constraints(), recorded.goalEndState());
+		callTimes.add(now() - start);
+		lastReplayAvailable = false;
+
+		double replayedLength = PathfindingLog.pathLength(path);
+		pathCount++;
+		if (Double.isNaN(replayedLength) && !Double.isNaN(recorded.pathLength())) {
+			missingPaths++;
+		} else if (!Double.isNaN(replayedLength) && Double.isNaN(recorded.pathLength())) {
+			extraPaths++;
+		} else if (!Double.isNaN(replayedLength)) {
+			costDifferences.add(replayedLength - recorded.pathLength());
+		}
+	}
+
+	/**
+	 * @return Whether the pathfinder currently has a new path, recording the latency if it just became available.
+	 */
+	private boolean pollAvailability() {
+		boolean available = pathfinder.isNewPathAvailable();
+		if (available && !lastReplayAvailable && !Double.isNaN(lastReplayRequestTime)) {
+			replayedLatencies.add(now() - lastReplayRequestTime);
+			lastReplayRequestTime = Double.NaN;
+		}
+		lastReplayAvailable = available;
+		return available;
+	}
+
+	private void printReport(double wallSeconds, List<Event> events) {
+		double logSeconds = events.isEmpty() ? 0 : events.get(events.size() - 1).timestamp() - events.get(0).timestamp();
+		System.out.printf("Replayed %.1fs of recording in %.1fs%n", logSeconds, wallSeconds);
+		System.out.println();
+		System.out.println("Latency (s), request -> new path available");
+		printStats("  recorded", recordedLatencies);
+		printStats("  replayed", replayedLatencies);
+		System.out.println();
+		printStats("getCurrentPath call time (s)", callTimes);
+		System.out.println();
+		System.out.printf("Path cost: %d paths retrieved, %d missing in replay, %d only in replay%n", pathCount, missingPaths, extraPaths);
+		printStats("  length difference, replayed - recorded (m)", costDifferences);
+	}
+
+	private static void printStats(String label, List<Double> values) {
+		if (values.isEmpty()) {
+			System.out.println(label + ": no samples");
+			return;
+		}
+		List<Double> sorted = new ArrayList<>(values);
+		Collections.sort(sorted);
+		double mean = sorted.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+		System.out.printf("%s: n=%d mean=%.4f p50=%.4f p95=%.4f max=%.4f%n",
+			label, sorted.size(), mean, percentile(sorted, 0.5), percentile(sorted, 0.95), sorted.get(sorted.size() - 1));
+	}
+
+	private static double percentile(List<Double> sorted, double p) {
+		return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size())));
+	}
+
+	private static boolean isRequest(Event event) {
+		return event instanceof SetStart || event instanceof SetGoal || event instanceof SetObstacles;
+	}
+
+	private static double now() {
+		return System.nanoTime() / 1e9;
+	}
+
+	private static void sleepUntil(long nanos) {
+		long remaining = nanos - System.nanoTime();
+		if (remaining > 0) {
+			try {
+				Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package frc.robot.commands.drive.pathfinding.replay;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.commands.drive.pathfinding.Pathfinder2;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps another pathfinder and records every call made to it into a {@link PathfindingLog}, so that a session can be
+ * replayed later with {@link PathfindingReplay}.
+ * <p>
+ * Calls go straight through to the wrapped pathfinder. Each event is encoded into memory on the calling thread and
+ * handed to a background thread that does the file I/O, so recording never blocks the robot loop; if that thread falls
+ * behind, events are dropped instead. A log stops growing at {@link #MAX_LOG_BYTES}, and only the newest
+ * {@link #MAX_LOG_FILES} logs are kept. If the log can't be written the error is reported once and recording stops,
+ * without affecting pathfinding.
+ */
+public class RecordingPathfinder implements Pathfinder2 {
+	private static final String LOG_DIRECTORY = "pathfinding_logs";
+	private static final String LOG_EXTENSION = ".pflog";
+	public static final long MAX_LOG_BYTES = 16 * 1024 * 1024;
+	public static final int MAX_LOG_FILES = 10;
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final long FLUSH_PERIOD_MS = 1000;
+
+	private final Pathfinder2 delegate;
+	private final BlockingQueue<byte[]> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	// reused by record to encode each event, only touched while synchronized
+	private final ByteArrayOutputStream eventBytes = new ByteArrayOutputStream(256);
+	private final DataOutputStream eventOut = new DataOutputStream(eventBytes);
+	private volatile boolean recording;
+	private boolean reportedDrop = false;
+	private boolean lastNewPathAvailable = false;
+
+	/**
+	 * @param delegate The pathfinder to record
+	 * @param logFile  The file to write the log to. Parent directories are created if needed.
+	 */
+	public RecordingPathfinder(Pathfinder2 delegate, File logFile) {
+		this.delegate = delegate;
+		OutputStream out;
+		try {
+			logFile.getParentFile().mkdirs();
+			out = new BufferedOutputStream(new FileOutputStream(logFile));
+			PathfindingLog.writeHeader(new DataOutputStream(out));
+			System.out.println("Recording pathfinding to " + logFile);
+		} catch (IOException e) {
+			DriverStation.reportError("Could not open pathfinding log " + logFile + ": " + e, false);
+			recording = false;
+			return;
+		}
+		recording = true;
+
+		Thread writerThread = new Thread(() -> runWriter(out));
+		writerThread.setDaemon(true);
+		writerThread.setName("Pathfinding Log Writer");
+		writerThread.start();
+	}
+
+	/**
+	 * Deletes the oldest logs in the pathfinding_logs folder of the operating directory so that, with the new one,
+	 * there are at most {@link #MAX_LOG_FILES}.
+	 *
+	 * @return A new log file named after the current time and process (so simultaneous simulations don't collide), in that folder.
+	 */
+	public static File newLogFile() {
+		File directory = new File(Filesystem.getOperatingDirectory(), LOG_DIRECTORY);
+		File[] logs = directory.listFiles((dir, name) -> name.endsWith(LOG_EXTENSION));
+		if (logs != null && logs.length >= MAX_LOG_FILES) {
+			Arrays.sort(logs, Comparator.comparingLong(File::lastModified));
+			for (int i = 0; i <= logs.length - MAX_LOG_FILES; i++) {
+				if (!logs[i].delete()) {
+					DriverStation.reportWarning("Could not delete old pathfinding log " + logs[i], false);
+				}
+			}
+		}
+
+		String name = "pathfinding_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + "_" + ProcessHandle.current().pid() + LOG_EXTENSION;
+		return new File(directory, name);
+	}
+
+	@Override
+	public boolean isNewPathAvailable() {
+		boolean available = delegate.isNewPathAvailable();
+		if (available && !lastNewPathAvailable) {
+			record(PathfindingLog.NEW_PATH_AVAILABLE, null);
+		}
+		lastNewPathAvailable = available;
+		return available;
+	}
+
+	@Override
+	public PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
+		double start = Timer.getFPGATimestamp();
+		PathPlannerPath path = delegate.getCurrentPath(constraints, goalEndState);
+		double callSeconds = Timer.getFPGATimestamp() - start;
+
+		double pathLength = PathfindingLog.pathLength(path);
+		record(PathfindingLog.GET_PATH, out -> {
+			PathfindingLog.writeConstraints(out, constraints);
+			PathfindingLog.writeGoalEndState(out, goalEndState);
+			out.writeDouble(callSeconds);
+			out.writeDouble(pathLength);
+		});
+		return path;
+	}
+
+	@Override
+	public PathPlannerPath getCurrentPathWithoutUpdate(PathConstraints constraints, GoalEndState goalEndState) {
+		// doesn't change the pathfinder's state, so it doesn't need to be replayed
+		return delegate.getCurrentPathWithoutUpdate(constraints, goalEndState);
+	}
+
+	@Override
+	public void setStartPosition(Translation2d startPosition) {
+		record(PathfindingLog.SET_START, out -> PathfindingLog.writeTranslation(out, startPosition));
+		delegate.setStartPosition(startPosition);
+	}
+
+	@Override
+	public void setGoalPosition(Translation2d goalPosition) {
+		record(PathfindingLog.SET_GOAL, out -> PathfindingLog.writeTranslation(out, goalPosition));
+		delegate.setGoalPosition(goalPosition);
+	}
+
+	@Override
+	public void setDynamicObstacles(List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+		record(PathfindingLog.SET_OBSTACLES, out -> {
+			PathfindingLog.writeTranslation(out, currentRobotPos);
+			out.writeInt(obs.size());
+			for (Pair<Translation2d, Translation2d> obstacle : obs) {
+				PathfindingLog.writeTranslation(out, obstacle.getFirst());
+				PathfindingLog.writeTranslation(out, obstacle.getSecond());
+			}
+		});
+		delegate.setDynamicObstacles(obs, currentRobotPos);
+	}
+
+	@FunctionalInterface
+	private interface PayloadWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private synchronized void record(byte type, PayloadWriter payload) {
+		if (!recording) {
+			return;
+		}
+		eventBytes.reset();
+		try {
+			eventOut.writeByte(type);
+			eventOut.writeDouble(Timer.getFPGATimestamp());
+			if (payload != null) {
+				payload.write(eventOut);
+			}
+		} catch (IOException e) {
+			// can't happen writing to memory
+			throw new IllegalStateException(e);
+		}
+		if (!pending.offer(eventBytes.toByteArray()) && !reportedDrop) {
+			reportedDrop = true;
+			DriverStation.reportWarning("Pathfinding log writer is falling behind, dropping events", false);
+		}
+	}
+
+	private void runWriter(OutputStream out) {
+		// the header (an int and a short) is already written
+		long written = Integer.BYTES + Short.BYTES;
+		try (out) {
+			while (true) {
+				byte[] event = pending.poll(FLUSH_PERIOD_MS, TimeUnit.MILLISECONDS);
+				if (event == null) {
+					// nothing new for a while, so make what's there readable
+					out.flush();
+					continue;
+				}
+				if (written + event.length > MAX_LOG_BYTES) {
+					DriverStation.reportWarning("Pathfinding log reached " + MAX_LOG_BYTES + " bytes, stopped recording", false);
+					break;
+				}
+				out.write(event);
+				written += event.length;
+			}
+		} catch (IOException e) {
+			DriverStation.reportError("Stopped recording pathfinding: " + e, false);
+		} catch (InterruptedException ignored) {
+		}
+		recording = false;
+		pending.clear();
+	}
+}
@@ -0,0 +1,281 @@
+package frc.robot.simulation;
+
+import com.pathplanner.lib.commands.PathPlannerAuto;
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.Robot;
+import frc.robot.RobotContainer;
+import frc.robot.subsystems.swerve.SwerveSimulation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs PathPlanner autos in simulation without a GUI or driver station, stepping the simulated clock one loop at a time as fast as the CPU
+ * allows instead of waiting for each 20ms loop in real time.
+ * <p>
+ * Usage: {@code HeadlessAutoRunner [--timeout <seconds>] [--jobs <n>] <auto name>... | --all}. Run from the project directory so the
+ * deploy folder is found, with the WPILib simulation natives on the library path (see the {@code autoSim} task in build.gradle).
+ * <p>
+ * With one auto, it runs in this JVM and a summary is printed: how long the auto took in match time, how far the simulated robot ended up
+ * from the end of the auto's last path (and from where the pose estimator thinks it is), and how long each loop took to compute. With more
+ * than one, each auto runs in its own JVM, up to {@code --jobs} (default: one per core) at a time, since robot code is full of static state
+ * and can only run one robot per process.
+ */
+public final class HeadlessAutoRunner {
+    private static final double LOOP_PERIOD_SECONDS = TimedRobot.kDefaultPeriod;
+    private static final double DEFAULT_TIMEOUT_SECONDS = 15;
+    /**
+     * Prefix of the machine-readable line each run prints, which the parent process collects into its table.
+     */
+    private static final String RESULT_PREFIX = "RESULT\t";
+
+    private HeadlessAutoRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        List<String> autos = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--timeout" -> timeoutSeconds = Double.parseDouble(args[++i]);
+                case "--jobs" -> jobs = Integer.parseInt(args[++i]);
+                case "--all" -> autos.addAll(listAutos());
+                default -> autos.add(args[i]);
+            }
+        }
+        if (autos.isEmpty()) {
+            System.err.println("Usage: HeadlessAutoRunner [--timeout <seconds>] [--jobs <n>] <auto name>... | --all");
+            System.exit(2);
+        }
+
+        if (autos.size() == 1) {
+            RunResult result = runAuto(autos.get(0), timeoutSeconds);
+            result.print();
+            System.out.println(result.toResultLine());
+            System.out.flush();
+            // robot code leaves non-daemon threads (notifiers, pathfinding) running
+            System.exit(0);
+        }
+        runInParallel(autos, timeoutSeconds, jobs);
+        System.exit(0);
+    }
+
+    /**
+     * @return The names of every auto in the deploy folder.
+     */
+    private static List<String> listAutos() {
+        File[] files = new File(Filesystem.getDeployDirectory(), "pathplanner/autos").listFiles((dir, name) -> name.endsWith(".auto"));
+        if (files == null) {
+            return List.of();
+        }
+        return Arrays.stream(files).map(file -> file.getName().substring(0, file.getName().length() - ".auto".length())).sorted().toList();
+    }
+
+    /**
+     * Start the robot code in simulation, run one auto to completion (or the timeout), and measure it.
+     */
+    private static RunResult runAuto(String autoName, double timeoutSeconds) throws Exception {
+        if (SimulationConstants.CURRENT_MODE != SimulationConstants.Mode.SIM) {
+            throw new IllegalStateException("HeadlessAutoRunner needs SimulationConstants.SIM_MODE to be SIM");
+        }
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        SimHooks.pauseTiming();
+        DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+
+        Robot robot = new Robot();
+        // RobotBase starts a NetworkTables server; several runs at once would all try to take the same port
+        NetworkTableInstance.getDefault().stopServer();
+        // run the robot the way RobotBase does, so every loop goes through AdvantageKit's LoggedRobot loop and IterativeRobotBase.loopFunc
+        // (mode transitions, the scheduler, SmartDashboard and the watchdog, in the same order as on the robot); with timing paused, each
+        // stepTiming below runs exactly one loop and waits for it to finish
+        Thread robotThread = new Thread(robot::startCompetition, "Robot");
+        robotThread.setDaemon(true);
+        robotThread.start();
+        SimHooks.waitForProgramStart();
+        SimHooks.stepTiming(0);
+
+        Pose2d targetPose = getAutoEndPose(autoName);
+        Command auto = new PathPlannerAuto(autoName);
+
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+        // one loop to enter autonomous; the scheduler ignores commands scheduled while disabled
+        SimHooks.stepTiming(LOOP_PERIOD_SECONDS);
+        auto.schedule();
+
+        int maxLoops = (int) Math.ceil(timeoutSeconds / LOOP_PERIOD_SECONDS);
+        long[] loopNanos = new long[maxLoops];
+        int loops = 0;
+        double startTime = Timer.getFPGATimestamp();
+        long wallStart = System.nanoTime();
+        while (loops < maxLoops && auto.isScheduled()) {
+            long loopStart = System.nanoTime();
+            SimHooks.stepTiming(LOOP_PERIOD_SECONDS);
+            loopNanos[loops++] = System.nanoTime() - loopStart;
+        }
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        double matchSeconds = Timer.getFPGATimestamp() - startTime;
+        boolean completed = !auto.isScheduled();
+
+        return new RunResult(
+                autoName,
+                completed,
+                matchSeconds,
+                wallSeconds,
+                targetPose,
+                SwerveSimulation.getPose(),
+                RobotContainer.INSTANCE.driveTrain.getPose(),
+                Arrays.copyOf(loopNanos, loops)
+        );
+    }
+
+    /**
+     * @return Where the auto should end: the end of its last path, on the blue alliance. Null if the auto has no paths.
+     */
+    private static Pose2d getAutoEndPose(String autoName) throws Exception {
+        List<PathPlannerPath> paths = PathPlannerAuto.getPathGroupFromAutoFile(autoName);
+        if (paths.isEmpty()) {
+            return null;
+        }
+        PathPlannerPath lastPath = paths.get(paths.size() - 1);
+        List<Pose2d> poses = lastPath.getPathPoses();
+        return new Pose2d(poses.get(poses.size() - 1).getTranslation(), lastPath.getGoalEndState().rotation());
+    }
+
+    /**
+     * Run each auto in its own JVM, with the same classpath and native library path as this one.
+     */
+    private static void runInParallel(List<String> autos, double timeoutSeconds, int jobs) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, jobs));
+        List<Future<String>> outputs = new ArrayList<>();
+        long wallStart = System.nanoTime();
+        for (String auto : autos) {
+            outputs.add(executor.submit(() -> {
+                Process process = new ProcessBuilder(
+                        java,
+                        "-cp", System.getProperty("java.class.path"),
+                        "-Djava.library.path=" + System.getProperty("java.library.path"),
+                        HeadlessAutoRunner.class.getName(),
+                        "--timeout", Double.toString(timeoutSeconds),
+                        auto
+                ).redirectErrorStream(true).start();
+                StringBuilder output = new StringBuilder();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        output.append(line).append('\n');
+                    }
+                }
+                int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    output.append(auto).append(" exited with code ").append(exitCode).append('\n');
+                }
+                return output.toString();
+            }));
+        }
+
+        List<String> resultLines = new ArrayList<>();
+        for (int i = 0; i < autos.size(); i++) {
+            String output = outputs.get(i).get();
+            System.out.println("=== " + autos.get(i) + " ===");
+            boolean foundResult = false;
+            for (String line : output.split("\n")) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    resultLines.add(line.substring(RESULT_PREFIX.length()));
+                    foundResult = true;
+                }
+            }
+            if (!foundResult) {
+                // no summary means the run failed, so show everything it printed
+                System.out.println(output);
+            }
+        }
+        executor.shutdown();
+
+        System.out.println();
+        System.out.printf("%d autos in %.1fs wall time, %d at a time%n", autos.size(), (System.nanoTime() - wallStart) / 1e9, jobs);
+        System.out.println(RunResult.RESULT_HEADER);
+        resultLines.forEach(System.out::println);
+    }
+
+    /**
+     * The measurements from one auto run.
+     *
+     * @param targetPose    The end of the auto's last path, or null if it has none
+     * @param actualPose    Where the simulated robot actually ended up
+     * @param estimatedPose Where the pose estimator thinks the robot ended up
+     * @param loopNanos     How long each loop took to compute
+     */
+    private record RunResult(String autoName, boolean completed, double matchSeconds, double wallSeconds, Pose2d targetPose, Pose2d actualPose,
+                             Pose2d estimatedPose, long[] loopNanos) {
+        static final String RESULT_HEADER = "auto\tcompleted\tmatch_s\ttarget_err_m\ttarget_err_deg\testimate_err_m\tloop_mean_ms\tloop_p99_ms\tloop_max_ms\tspeedup";
+
+        double targetErrorMeters() {
+            return targetPose == null ? Double.NaN : actualPose.getTranslation().getDistance(targetPose.getTranslation());
+        }
+
+        double targetErrorDegrees() {
+            return targetPose == null ? Double.NaN : Math.abs(actualPose.getRotation().minus(targetPose.getRotation()).getDegrees());
+        }
+
+        double estimateErrorMeters() {
+            return actualPose.getTranslation().getDistance(estimatedPose.getTranslation());
+        }
+
+        double loopMillis(double percentile) {
+            if (loopNanos.length == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = loopNanos.clone();
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))] / 1e6;
+        }
+
+        double meanLoopMillis() {
+            return Arrays.stream(loopNanos).average().orElse(Double.NaN) / 1e6;
+        }
+
+        void print() {
+            System.out.println("Auto: " + autoName);
+            System.out.printf("  %s after %.2fs of match time (%d loops, %.2fs wall time, %.1fx real time)%n",
+                    completed ? "Completed" : "TIMED OUT", matchSeconds, loopNanos.length, wallSeconds, matchSeconds / wallSeconds);
+            System.out.println("  Final pose: " + actualPose + ", target: " + targetPose + ", estimated: " + estimatedPose);
+            System.out.printf("  Final pose error: %.3fm, %.1fdeg from target; %.3fm between estimate and actual%n",
+                    targetErrorMeters(), targetErrorDegrees(), estimateErrorMeters());
+            System.out.printf("  Loop compute time: mean %.2fms, p50 %.2fms, p95 %.2fms, p99 %.2fms, max %.2fms%n",
+                    meanLoopMillis(), loopMillis(0.5), loopMillis(0.95), loopMillis(0.99), loopMillis(1));
+        }
+
+        String toResultLine() {
+            return String.format("%s%s\t%b\t%.2f\t%.3f\t%.1f\t%.3f\t%.2f\t%.2f\t%.2f\t%.1f",
+                    RESULT_PREFIX, autoName, completed, matchSeconds, targetErrorMeters(), targetErrorDegrees(), estimateErrorMeters(),
+                    meanLoopMillis(), loopMillis(0.99), loopMillis(1), matchSeconds / wallSeconds);
+        }
+    }
+}
@@ -9,6 +9,8 @@ import edu.wpi.first.wpilibj.Servo;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.PortConstants;
 import frc.robot.Flags;
+import frc.robot.util.CanTrafficMonitor;
+import frc.robot.util.SparkSignalProfile;
 import frc.robot.util.Util;
 
 public class AlgaeGroundIntakeSubsystem extends SubsystemBase {
@@ -33,6 +35,7 @@ public class AlgaeGroundIntakeSubsystem extends SubsystemBase {
                 .smartCurrentLimit(20)
                 .voltageCompensation(12);
         
+        SparkSignalProfile.ROLLER.apply(algaeMotorConfig, "algae ground intake");
         Util.configureSparkMotor(algaeIntakeMotor, algaeMotorConfig);
 
         flapToValue(0.95, 0.05);
@@ -46,6 +49,7 @@ public class AlgaeGroundIntakeSubsystem extends SubsystemBase {
     public void setIntakeSpeed(double speed) {
         if(Flags.AlgaeGroundIntake.ENABLED) {
             // System.out.println("setting intake to " + speed);
+            CanTrafficMonitor.countCommand(algaeIntakeMotor);
             algaeIntakeMotor.set(speed);
         }
     }
@@ -8,6 +8,8 @@ import com.revrobotics.spark.config.SparkMaxConfig;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Flags;
+import frc.robot.util.CanTrafficMonitor;
+import frc.robot.util.SparkSignalProfile;
 import frc.robot.util.Util;
 
 public class AlgaeReefRemoverSubsystem extends SubsystemBase {
@@ -24,6 +26,7 @@ public class AlgaeReefRemoverSubsystem extends SubsystemBase {
                 .smartCurrentLimit(20)
                 .voltageCompensation(12);
         
+        SparkSignalProfile.ROLLER.apply(algaeMotorConfig, "algae reef remover");
         Util.configureSparkMotor(algaeRemoverMotor, algaeMotorConfig);
         // algaeRemoverMotor.configure(algaeMotorConfig, SparkBase.ResetMode.kResetSafeParameters, SparkBase.PersistMode.kPersistParameters);
     }
@@ -34,6 +37,7 @@ public class AlgaeReefRemoverSubsystem extends SubsystemBase {
 
     public void setIntakeSpeed(double speed) {
         if (Flags.AlgaeReefRemover.ENABLED) {
+            CanTrafficMonitor.countCommand(algaeRemoverMotor);
             algaeRemoverMotor.set(speed);
         }
     }
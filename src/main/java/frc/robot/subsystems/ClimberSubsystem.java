@@ -20,7 +20,9 @@ import edu.wpi.first.wpilibj.ADIS16470_IMU.IMUAxis;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Flags;
+import frc.robot.util.CanTrafficMonitor;
 import frc.robot.util.NetworkTablesUtil;
+import frc.robot.util.SparkSignalProfile;
 import frc.robot.util.Util;
 
 public class ClimberSubsystem extends SubsystemBase {
@@ -79,6 +81,8 @@ public class ClimberSubsystem extends SubsystemBase {
             .outputRange(-0.5, 0.5)
             .feedbackSensor(FeedbackSensor.kAbsoluteEncoder);
         
+        SparkSignalProfile.FOLLOWER.apply(leftClimbMotorConfig, "climber left");
+        SparkSignalProfile.ABSOLUTE_POSITION_LEADER.apply(rightClimbMotorConfig, "climber right");
         Util.configureSparkMotor(leftClimbMotor, leftClimbMotorConfig);
         Util.configureSparkMotor(rightClimbMotor, rightClimbMotorConfig);
         // leftClimbMotor.configure(leftClimbMotorConfig, SparkBase.ResetMode.kResetSafeParameters, SparkBase.PersistMode.kPersistParameters);
@@ -97,6 +101,7 @@ public class ClimberSubsystem extends SubsystemBase {
         // System.out.println("climbMotorAbsoluteEncoder.getPosition() is " + climbMotorAbsoluteEncoder.getPosition());
         
         if(this.rightClimbMotor.get() > 0 && this.climbMotorAbsoluteEncoder.getPosition() >= UPPER_HARD_LIMIT - 0.01) {
+            CanTrafficMonitor.countCommand(rightClimbMotor);
             rightClimbMotor.set(0);
         }
         // throughboreEncoder.periodic();
@@ -105,6 +110,7 @@ public class ClimberSubsystem extends SubsystemBase {
     public void setTargetRotationCount(double target) {
         if (Flags.Climber.ENABLED) {
             target = MathUtil.clamp(target, 0, UPPER_HARD_LIMIT);
+            CanTrafficMonitor.countCommand(rightClimbMotor);
             pidController.setReference(target, SparkBase.ControlType.kPosition);
         }
     }
@@ -114,13 +120,16 @@ public class ClimberSubsystem extends SubsystemBase {
             if(speed > 0 && this.climbMotorAbsoluteEncoder.getPosition() >= UPPER_HARD_LIMIT - 0.01) {
                 return;
             }
+            CanTrafficMonitor.countCommand(rightClimbMotor);
             rightClimbMotor.set(speed);
         }
     }
 
     public void setRawSpeedBoth(double left, double right) {
         if (Flags.Climber.ENABLED) {
+            CanTrafficMonitor.countCommand(rightClimbMotor);
             rightClimbMotor.set(right);
+            CanTrafficMonitor.countCommand(leftClimbMotor);
             leftClimbMotor.set(left);
         }
     }
@@ -21,8 +21,10 @@ import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Flags;
+import frc.robot.util.CanTrafficMonitor;
 import frc.robot.util.LEDStrip;
 import frc.robot.util.NetworkTablesUtil;
+import frc.robot.util.SparkSignalProfile;
 import frc.robot.util.Util;
 
 public class CoralIntakeSubsystem extends SubsystemBase {
@@ -85,6 +87,7 @@ public class CoralIntakeSubsystem extends SubsystemBase {
 
         coralPivotEncoder.setPosition(coralPivotAbsoluteEncoder.getPosition());
         
+        SparkSignalProfile.ABSOLUTE_POSITION_MECHANISM.apply(coralPivotMotorConfig, "coral pivot");
         Util.configureSparkMotor(coralPivotMotor, coralPivotMotorConfig);
         // coralPivotMotor.configure(coralPivotMotorConfig, SparkBase.ResetMode.kResetSafeParameters, SparkBase.PersistMode.kPersistParameters);
 
@@ -101,6 +104,7 @@ public class CoralIntakeSubsystem extends SubsystemBase {
                 .reverseLimitSwitchType(LimitSwitchConfig.Type.kNormallyOpen);
         this.coralLimitSwitch = coralIntakeMotor.getReverseLimitSwitch();
         
+        SparkSignalProfile.ROLLER.apply(coralIntakeMotorConfig, "coral intake");
         Util.configureSparkMotor(coralIntakeMotor, coralIntakeMotorConfig);
         //coralIntakeMotor.configure(coralIntakeMotorConfig, SparkBase.ResetMode.kResetSafeParameters, SparkBase.PersistMode.kPersistParameters);
 
@@ -131,12 +135,14 @@ public class CoralIntakeSubsystem extends SubsystemBase {
         if (Flags.CoralIntake.ENABLED) {
             double rot = MathUtil.clamp(target.getRotations(), VERY_HARD_BACK_LIMIT, FRONT_LIMIT);
             // System.out.println("i set the target angle to " + rot);
+            CanTrafficMonitor.countCommand(coralPivotMotor);
             coralPivotPIDController.setReference(rot, SparkBase.ControlType.kPosition);
         }
     }
 
     public void setIntakeSpeed(double speed) {
         if (Flags.CoralIntake.ENABLED) {
+            CanTrafficMonitor.countCommand(coralIntakeMotor);
             coralIntakeMotor.set(speed);
         }
     }
@@ -144,6 +150,7 @@ public class CoralIntakeSubsystem extends SubsystemBase {
     public void setRawPivotSpeed(double speed) {
         if (Flags.CoralIntake.ENABLED) {
             // System.out.println(speed);
+            CanTrafficMonitor.countCommand(coralPivotMotor);
             coralPivotMotor.set(speed);
         }
     }
@@ -16,7 +16,9 @@ import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Flags;
+import frc.robot.util.CanTrafficMonitor;
 import frc.robot.util.NetworkTablesUtil;
+import frc.robot.util.SparkSignalProfile;
 import frc.robot.util.Util;
 
 public class ElevatorSubsystem extends SubsystemBase {
@@ -91,6 +93,8 @@ public class ElevatorSubsystem extends SubsystemBase {
                 .pidf(2.2, 0, 0, 0.1)
                 .outputRange(-MAX_OUTPUT_LEFT_ELEVATOR_PIDS, MAX_OUTPUT_LEFT_ELEVATOR_PIDS);
         
+        SparkSignalProfile.RELATIVE_POSITION_MECHANISM.apply(leftConfig, "elevator left");
+        SparkSignalProfile.RELATIVE_POSITION_MECHANISM.apply(rightConfig, "elevator right");
         Util.configureSparkMotor(leftMotor, leftConfig);
         Util.configureSparkMotor(rightMotor, rightConfig);
 
@@ -179,7 +183,9 @@ public class ElevatorSubsystem extends SubsystemBase {
         this.currentSetpointMeters = heightMeters;
         if (Flags.Elevator.ENABLED) {
             if (heightMeters <= MAX_HEIGHT && heightMeters >= MIN_HEIGHT) {
+                CanTrafficMonitor.countCommand(rightMotor);
                 this.rightPIDController.setReference(heightMeters, SparkBase.ControlType.kPosition, ClosedLoopSlot.kSlot0, 0);
+                CanTrafficMonitor.countCommand(leftMotor);
                 this.leftPIDController.setReference(heightMeters, SparkBase.ControlType.kPosition, ClosedLoopSlot.kSlot0, 0);
             }
         }
@@ -192,7 +198,9 @@ public class ElevatorSubsystem extends SubsystemBase {
 
     public void setRawSpeeds(double rightSpeed, double leftSpeed) {
         if (Flags.Elevator.ENABLED) {
+            CanTrafficMonitor.countCommand(rightMotor);
             this.rightMotor.set(rightSpeed);
+            CanTrafficMonitor.countCommand(leftMotor);
             this.leftMotor.set(leftSpeed);
 
             System.out.println("R, L at: " + rightMotor.get() + ", " + leftMotor.get());
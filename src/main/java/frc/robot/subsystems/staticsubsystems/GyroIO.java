@@ -0,0 +1,94 @@
+package frc.robot.subsystems.staticsubsystems;
+
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+/**
+ * The hardware behind {@link RobotGyro}: the ADIS16470 on the real robot ({@link GyroIOADIS16470}), a simulated gyro ({@link GyroIOSim}),
+ * or nothing when replaying a log, in which case the inputs come from the log and this interface's no-op defaults are used.
+ * <p>
+ * Angles are raw readings in degrees; {@link RobotGyro} applies its own heading offset on top.
+ */
+public interface GyroIO {
+    /**
+     * Everything read from the gyro once per loop. Logged (and replayed) by AdvantageKit.
+     */
+    class GyroIOInputs implements LoggableInputs {
+        public boolean connected = false;
+        public double xAngleDegrees = 0;
+        public double yAngleDegrees = 0;
+        public double zAngleDegrees = 0;
+        public double yawVelocityDegreesPerSec = 0;
+        public double xComplementaryAngleDegrees = 0;
+        public double yComplementaryAngleDegrees = 0;
+        public double accelX = 0;
+        public double accelY = 0;
+        public double accelZ = 0;
+
+        // every OdometryThread sample taken during the loop, oldest first, with RobotGyro's heading offset applied; empty when it isn't running
+        public double[] odometryTimestamps = new double[0];
+        public double[] odometryYawDegrees = new double[0];
+
+        @Override
+        public void toLog(LogTable table) {
+            table.put("Connected", connected);
+            table.put("XAngleDegrees", xAngleDegrees);
+            table.put("YAngleDegrees", yAngleDegrees);
+            table.put("ZAngleDegrees", zAngleDegrees);
+            table.put("YawVelocityDegreesPerSec", yawVelocityDegreesPerSec);
+            table.put("XComplementaryAngleDegrees", xComplementaryAngleDegrees);
+            table.put("YComplementaryAngleDegrees", yComplementaryAngleDegrees);
+            table.put("AccelX", accelX);
+            table.put("AccelY", accelY);
+            table.put("AccelZ", accelZ);
+            table.put("OdometryTimestamps", odometryTimestamps);
+            table.put("OdometryYawDegrees", odometryYawDegrees);
+        }
+
+        @Override
+        public void fromLog(LogTable table) {
+            connected = table.get("Connected", connected);
+            xAngleDegrees = table.get("XAngleDegrees", xAngleDegrees);
+            yAngleDegrees = table.get("YAngleDegrees", yAngleDegrees);
+            zAngleDegrees = table.get("ZAngleDegrees", zAngleDegrees);
+            yawVelocityDegreesPerSec = table.get("YawVelocityDegreesPerSec", yawVelocityDegreesPerSec);
+            xComplementaryAngleDegrees = table.get("XComplementaryAngleDegrees", xComplementaryAngleDegrees);
+            yComplementaryAngleDegrees = table.get("YComplementaryAngleDegrees", yComplementaryAngleDegrees);
+            accelX = table.get("AccelX", accelX);
+            accelY = table.get("AccelY", accelY);
+            accelZ = table.get("AccelZ", accelZ);
+            odometryTimestamps = table.get("OdometryTimestamps", odometryTimestamps);
+            odometryYawDegrees = table.get("OdometryYawDegrees", odometryYawDegrees);
+        }
+    }
+
+    /**
+     * Read the gyro into the inputs. Called once per loop.
+     *
+     * @param inputs The inputs to fill in
+     */
+    default void updateInputs(GyroIOInputs inputs) {
+    }
+
+    /**
+     * Reset every axis of the gyro to zero.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Rerun gyro calibration. The robot should not be moving.
+     */
+    default void calibrate() {
+    }
+
+    /**
+     * Read the yaw directly from the hardware rather than from the inputs. Only for {@link frc.robot.subsystems.swerve.OdometryThread},
+     * which runs on real hardware only.
+     *
+     * @return The raw yaw in degrees
+     */
+    default double getOdometryYawDegrees() {
+        return 0;
+    }
+}
@@ -0,0 +1,48 @@
+package frc.robot.subsystems.staticsubsystems;
+
+import edu.wpi.first.wpilibj.ADIS16470_IMU;
+import edu.wpi.first.wpilibj.ADIS16470_IMU.IMUAxis;
+
+/**
+ * The ADIS16470 IMU on the roboRIO's SPI port.
+ */
+public class GyroIOADIS16470 implements GyroIO {
+    private final ADIS16470_IMU gyro = new ADIS16470_IMU();
+
+    public GyroIOADIS16470() {
+        // TODO fix tje gy ro!!!
+        // gyro.setYawAxis(ADIS16470_IMU.IMUAxis.kZ);
+        gyro.calibrate();
+        gyro.reset();
+    }
+
+    @Override
+    public void updateInputs(GyroIOInputs inputs) {
+        inputs.connected = gyro.isConnected();
+        inputs.xAngleDegrees = gyro.getAngle(IMUAxis.kX);
+        inputs.yAngleDegrees = gyro.getAngle(IMUAxis.kY);
+        inputs.zAngleDegrees = gyro.getAngle(IMUAxis.kZ);
+        inputs.yawVelocityDegreesPerSec = gyro.getRate();
+        inputs.xComplementaryAngleDegrees = gyro.getXComplementaryAngle();
+        inputs.yComplementaryAngleDegrees = gyro.getYComplementaryAngle();
+        inputs.accelX = gyro.getAccelX();
+        inputs.accelY = gyro.getAccelY();
+        inputs.accelZ = gyro.getAccelZ();
+    }
+
+    @Override
+    public void reset() {
+        gyro.reset();
+        gyro.setGyroAngle(IMUAxis.kZ, 0);
+    }
+
+    @Override
+    public void calibrate() {
+        gyro.calibrate();
+    }
+
+    @Override
+    public double getOdometryYawDegrees() {
+        return gyro.getAngle(IMUAxis.kZ);
+    }
+}
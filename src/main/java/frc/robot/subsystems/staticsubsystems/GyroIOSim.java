@@ -0,0 +1,42 @@
+package frc.robot.subsystems.staticsubsystems;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.ironmaple.simulation.drivesims.GyroSimulation;
+
+import static edu.wpi.first.units.Units.DegreesPerSecond;
+
+/**
+ * The gyro of the maple-sim drivetrain in {@link frc.robot.subsystems.swerve.SwerveSimulation}, including its simulated drift. Only yaw is
+ * simulated; the robot is assumed to stay flat.
+ */
+public class GyroIOSim implements GyroIO {
+    private final GyroSimulation gyroSimulation;
+
+    public GyroIOSim(GyroSimulation gyroSimulation) {
+        this.gyroSimulation = gyroSimulation;
+    }
+
+    @Override
+    public void updateInputs(GyroIOInputs inputs) {
+        inputs.connected = true;
+        inputs.xAngleDegrees = 0;
+        inputs.yAngleDegrees = 0;
+        inputs.zAngleDegrees = gyroSimulation.getGyroReading().getDegrees();
+        inputs.yawVelocityDegreesPerSec = gyroSimulation.getMeasuredAngularVelocity().in(DegreesPerSecond);
+        inputs.xComplementaryAngleDegrees = 0;
+        inputs.yComplementaryAngleDegrees = 0;
+        inputs.accelX = 0;
+        inputs.accelY = 0;
+        inputs.accelZ = 1;
+    }
+
+    @Override
+    public void reset() {
+        gyroSimulation.setRotation(Rotation2d.kZero);
+    }
+
+    @Override
+    public double getOdometryYawDegrees() {
+        return gyroSimulation.getGyroReading().getDegrees();
+    }
+}
@@ -2,19 +2,69 @@ package frc.robot.subsystems.staticsubsystems;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.networktables.DoubleArraySubscriber;
-import edu.wpi.first.networktables.IntegerSubscriber;
-import edu.wpi.first.networktables.NetworkTable;
-import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.TimestampedDouble;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.LimelightHelpers;
+import frc.robot.LimelightHelpers.PoseEstimateBuffer;
+import frc.robot.util.LimelightCamera;
 import frc.robot.util.NetworkTablesUtil;
 
 public final class LimeLight {
-    public record LimeyApriltagReading(boolean exists, Pose2d pose, int tag, double distance, double timestamp) {
+    /**
+     * @param tagCount  How many tags the pose was computed from
+     * @param distance  Average distance to the tags, in meters
+     * @param ambiguity Highest pose ambiguity of the tags seen, from rawfiducials; 0 if unknown
+     * @param timestamp The FPGA timestamp the frame was captured at, in seconds
+     * @param megaTag2  Whether the pose is from MegaTag 2 (botpose_orb), which uses the robot's heading instead of solving for it
+     */
+    public record LimeyApriltagReading(boolean exists, Pose2d pose, int tag, int tagCount, double distance, double ambiguity, double timestamp, boolean megaTag2) {
     }
 
-    private static final NetworkTable TABLE = NetworkTablesUtil.getTable("limelight");
-    private static final IntegerSubscriber HEARTBEAT_ENTRY = TABLE.getIntegerTopic("hb").subscribe(-1);
-    private static final DoubleArraySubscriber APRILTAG_POSE_ENTRY = TABLE.getDoubleArrayTopic("botpose_wpiblue").subscribe(new double[] {});
+    /**
+     * One frame read by {@link #readLimeyApriltagFrames(LimeyApriltagFrame[])}. Frames are filled in place and reused by every read, so
+     * reading doesn't allocate; copy out anything that has to outlive the loop.
+     */
+    public static final class LimeyApriltagFrame {
+        // robot pose on the field, blue origin
+        public double x;
+        public double y;
+        public double yawDegrees;
+        // the primary tag, from tid
+        public int tag;
+        // how many tags the pose was computed from
+        public int tagCount;
+        // average distance to the tags, in meters
+        public double distance;
+        // highest pose ambiguity of the tags the pose was computed from; 0 for MegaTag 2
+        public double ambiguity;
+        // the FPGA timestamp the frame was captured at, in seconds
+        public double timestamp;
+        // whether the pose is from MegaTag 2 (botpose_orb), which uses the robot's heading instead of solving for it
+        public boolean megaTag2;
+    }
+
+    // more tags than this in one frame are ignored when parsing
+    private static final int MAX_FIDUCIALS = 16;
+    // reused for every frame, so parsing doesn't allocate
+    private static final PoseEstimateBuffer POSE_ESTIMATE_BUFFER = new PoseEstimateBuffer(MAX_FIDUCIALS);
+
+    private static final LimelightCamera CAMERA = LimelightCamera.get("limelight");
+
+    private static final IntegerPublisher FRAMES_PUBLISHER = NetworkTablesUtil.MAIN_ROBOT_TABLE.getIntegerTopic("limey/framesThisLoop").publish();
+    private static final IntegerPublisher DROPPED_FRAMES_PUBLISHER = NetworkTablesUtil.MAIN_ROBOT_TABLE.getIntegerTopic("limey/droppedFrames").publish();
+    private static final IntegerPublisher DUPLICATE_FRAMES_PUBLISHER = NetworkTablesUtil.MAIN_ROBOT_TABLE.getIntegerTopic("limey/duplicateFrames").publish();
+
+    // tid of the newest frame read so far, for frames whose own tid was published in an earlier read
+    private static double lastTagId = -1;
+    private static double lastFrameTimestamp = Double.NEGATIVE_INFINITY;
+    private static double lastMegaTag2FrameTimestamp = Double.NEGATIVE_INFINITY;
+    private static long firstHeartbeat = -1;
+    private static long lastHeartbeat = -1;
+    private static long receivedFrames = 0;
+    private static long duplicateFrames = 0;
     
     private LimeLight() {
     }
@@ -24,35 +74,179 @@ public final class LimeLight {
         setLimeyPipeline(0);
     }
     
+    /**
+     * @return The handle for the Limelight, for anything not wrapped here.
+     */
+    public static LimelightCamera getCamera() {
+        return CAMERA;
+    }
+    
     public static void setLimeyPipeline(int pipeline) {
-        TABLE.getEntry("pipeline").setNumber(pipeline);
+        CAMERA.setPipeline(pipeline);
     }
     
     public static int getLimeyPipeline() {
-        return TABLE.getEntry("pipeline").getNumber(1).intValue();
+        return CAMERA.getPipeline();
     }
     
     public static float getLimeyTX() {
-        return NetworkTablesUtil.getEntry("limelight", "tx").getNumber(0.0).floatValue();
+        return (float) CAMERA.getTX();
     }
     
     public static float getLimeyTY() {
-        return NetworkTablesUtil.getEntry("limelight", "ty").getNumber(0.0).floatValue();
+        return (float) CAMERA.getTY();
     }
     
     public static LimeyApriltagReading getLimeyApriltagReading() {
-        double[] arr = APRILTAG_POSE_ENTRY.get();
-        if(arr.length == 0 || !isLimeyConnected()) return new LimeyApriltagReading(false, new Pose2d(), -1, -1, RobotController.getFPGATime());
+        TimestampedDoubleArray botPose = CAMERA.getBotPose();
+        double[] arr = botPose.value;
+        if(arr.length == 0 || !isLimeyConnected()) return new LimeyApriltagReading(false, new Pose2d(), -1, 0, -1, 0, Timer.getFPGATimestamp(), false);
         int tID = getLimeyTargetTag();
 
-        return new LimeyApriltagReading(tID != -1, new Pose2d(arr[0], arr[1], Rotation2d.fromDegrees(arr[5])), tID, arr[9], APRILTAG_POSE_ENTRY.getLastChange() - arr[6]);
+        // getLastChange is in microseconds and the total latency (arr[6]) in milliseconds
+        return new LimeyApriltagReading(tID != -1, new Pose2d(arr[0], arr[1], Rotation2d.fromDegrees(arr[5])), tID, (int) arr[7], arr[9], 0, botPose.timestamp / 1e6 - arr[6] / 1000, false);
+    }
+
+    /**
+     * @return Frames for {@link #readLimeyApriltagFrames(LimeyApriltagFrame[])}, enough for everything the queues can hold.
+     */
+    public static LimeyApriltagFrame[] newLimeyApriltagFrameBuffer() {
+        LimeyApriltagFrame[] frames = new LimeyApriltagFrame[2 * LimelightCamera.QUEUE_DEPTH];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new LimeyApriltagFrame();
+        }
+        return frames;
+    }
+
+    /**
+     * Every botpose frame published since the last call, oldest first, each paired with the tid published with it: the MegaTag 1 frames
+     * (botpose_wpiblue), then the MegaTag 2 frames (botpose_orb_wpiblue, which only make sense once
+     * {@link #setRobotOrientation(double, double)} is being called every loop). Ambiguity comes from the fiducials embedded in each botpose
+     * array, so it always belongs to the same frame. Frames older than one already returned (the same frame published again) are skipped,
+     * so each frame is returned exactly once. Also publishes how many MegaTag 1 frames were read, and running totals of frames dropped (the
+     * heartbeat went up but no botpose arrived) and duplicates.
+     * <p>
+     * Call once per loop; the queues only hold {@link LimelightCamera#QUEUE_DEPTH} values each.
+     *
+     * @param out Frames to fill in, from {@link #newLimeyApriltagFrameBuffer()}
+     * @return How many frames of out were filled in, which may be none
+     */
+    public static int readLimeyApriltagFrames(LimeyApriltagFrame[] out) {
+        TimestampedDoubleArray[] poses = CAMERA.readBotPoseQueue();
+        TimestampedDoubleArray[] megaTag2Poses = CAMERA.readBotPoseMegaTag2Queue();
+        TimestampedDouble[] tagIds = CAMERA.readTagIdQueue();
+        countHeartbeats();
+        receivedFrames += poses.length;
+
+        int count = readFrames(poses, false, tagIds, out, 0);
+        count = readFrames(megaTag2Poses, true, tagIds, out, count);
+        // the newest tid is the one later frames whose tid hasn't changed will need
+        if (tagIds.length > 0) {
+            lastTagId = tagIds[tagIds.length - 1].value;
+        }
+
+        FRAMES_PUBLISHER.set(poses.length);
+        DUPLICATE_FRAMES_PUBLISHER.set(duplicateFrames);
+        return count;
+    }
+
+    /**
+     * Parse one queue of botpose frames into out, pairing each with the newest tid published at or before it.
+     *
+     * @return The number of frames in out, including the ones already there
+     */
+    private static int readFrames(TimestampedDoubleArray[] poses, boolean megaTag2, TimestampedDouble[] tagIds, LimeyApriltagFrame[] out, int count) {
+        double tagId = lastTagId;
+        int tagIdIndex = 0;
+        for (TimestampedDoubleArray pose : poses) {
+            // a frame's values are all published in one flush, so they share a server time
+            while (tagIdIndex < tagIds.length && tagIds[tagIdIndex].serverTime <= pose.serverTime) {
+                tagId = tagIds[tagIdIndex++].value;
+            }
+
+            if (!LimelightHelpers.parseBotPoseEstimate(pose.value, pose.timestamp, megaTag2, POSE_ESTIMATE_BUFFER)) {
+                continue;
+            }
+            PoseEstimateBuffer estimate = POSE_ESTIMATE_BUFFER;
+            if (estimate.timestampSeconds <= (megaTag2 ? lastMegaTag2FrameTimestamp : lastFrameTimestamp)) {
+                if (!megaTag2) {
+                    // each duplicate shows up in both topics; count it once
+                    duplicateFrames++;
+                }
+                continue;
+            }
+            if (megaTag2) {
+                lastMegaTag2FrameTimestamp = estimate.timestampSeconds;
+            } else {
+                lastFrameTimestamp = estimate.timestampSeconds;
+            }
+            if (count == out.length) {
+                continue;
+            }
+
+            // MegaTag 2 takes the heading from the gyro, so it has no flipped solutions for ambiguity to warn about
+            double ambiguity = 0;
+            if (!megaTag2) {
+                for (int i = 0; i < estimate.fiducialCount; i++) {
+                    ambiguity = Math.max(ambiguity, estimate.rawFiducials[i].ambiguity);
+                }
+            }
+            LimeyApriltagFrame frame = out[count++];
+            frame.x = estimate.x;
+            frame.y = estimate.y;
+            frame.yawDegrees = estimate.yawDegrees;
+            frame.tag = (int) tagId;
+            frame.tagCount = estimate.tagCount;
+            frame.distance = estimate.avgTagDist;
+            frame.ambiguity = ambiguity;
+            frame.timestamp = estimate.timestampSeconds;
+            frame.megaTag2 = megaTag2;
+        }
+        return count;
+    }
+
+    /**
+     * Give the Limelight the robot's heading, which it needs for MegaTag 2. Call every loop, after odometry is updated; the value is sent on
+     * the next NetworkTables flush.
+     *
+     * @param yawDegrees              The robot's heading on the field, blue origin, in degrees
+     * @param yawRateDegreesPerSecond How fast the heading is changing, in degrees per second
+     */
+    public static void setRobotOrientation(double yawDegrees, double yawRateDegreesPerSecond) {
+        CAMERA.setRobotOrientationNoFlush(yawDegrees, yawRateDegreesPerSecond);
+    }
+
+    private static void countHeartbeats() {
+        NetworkTableValue[] heartbeats = CAMERA.readHeartbeatQueue();
+        for (NetworkTableValue heartbeat : heartbeats) {
+            if (heartbeat.getValue() instanceof Number number) {
+                long value = number.longValue();
+                if (firstHeartbeat < 0 || value < lastHeartbeat) {
+                    // first frame seen, or the Limelight restarted
+                    firstHeartbeat = value;
+                    receivedFrames = 0;
+                }
+                lastHeartbeat = value;
+            }
+        }
+        if (firstHeartbeat >= 0) {
+            // frames since the first heartbeat, minus those that arrived; never negative since frames can arrive before their heartbeat
+            DROPPED_FRAMES_PUBLISHER.set(Math.max(0, lastHeartbeat - firstHeartbeat - receivedFrames));
+        }
+    }
+
+    /**
+     * @return The FPGA timestamp the frame behind the current {@link #getLimeyTX()} was captured at, in seconds.
+     */
+    public static double getLimeyTXTimestamp() {
+        return CAMERA.getTXTimestamp();
     }
     
     public static int getLimeyTargetTag() {
-        return NetworkTablesUtil.getNTInstance().getTable("limelight").getEntry("tid").getNumber(0).intValue();
+        return CAMERA.getTargetTag();
     }
 
     public static boolean isLimeyConnected() {
-        return ((RobotController.getFPGATime() - HEARTBEAT_ENTRY.getLastChange()) / 1000) < 250;
+        return CAMERA.isConnected();
     }
 }
\ No newline at end of file
@@ -10,19 +10,49 @@ import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.RobotController;
 import frc.robot.util.NetworkTablesUtil;
 
+import java.util.Arrays;
+
 public final class QuestNav {
 	public static final QuestNav INSTANCE = new QuestNav();
+	/**
+	 * One headset sample, with its position and angles from the same update.
+	 *
+	 * @param timestamp      The FPGA timestamp the sample was published at, in seconds
+	 * @param questTimestamp The headset's own timestamp for the sample, in seconds; NaN if it wasn't received
+	 * @param position       Raw position, in the headset's coordinate system
+	 * @param eulerAngles    Raw euler angles, in degrees
+	 */
+	public record QuestNavSample(double timestamp, double questTimestamp, float[] position, float[] eulerAngles) {
+	}
+	
+	/**
+	 * How many values of each topic are kept between reads. The headset publishes at ~100Hz, 2 samples per loop.
+	 */
+	private static final int QUEUE_DEPTH = 20;
+	/**
+	 * The headset publishes a sample's position, angles and timestamp together, so their server times are (nearly) the same; values further
+	 * apart than this are from different samples.
+	 */
+	private static final long PAIRING_TOLERANCE_MICROS = 2000;
 	private Rotation2d gyroResetAngle = new Rotation2d();
 	// Configure Network Tables topics (questnav/...) to communicate with the Quest HMD
 	NetworkTable nt4Table = NetworkTablesUtil.getTable("questnav");
 	private final IntegerSubscriber questMiso = nt4Table.getIntegerTopic("miso").subscribe(0);
 	private final IntegerPublisher questMosi = nt4Table.getIntegerTopic("mosi").publish();
 	// Subscribe to the Network Tables questnav data topics
-	private final DoubleSubscriber questTimestamp = nt4Table.getDoubleTopic("timestamp").subscribe(0.0f);
 	private final FloatArraySubscriber questPosition = nt4Table.getFloatArrayTopic("position").subscribe(new float[] {0.0f, 0.0f, 0.0f});
 	private final FloatArraySubscriber questQuaternion = nt4Table.getFloatArrayTopic("quaternion").subscribe(new float[] {0.0f, 0.0f, 0.0f, 0.0f});
 	private final FloatArraySubscriber questEulerAngles = nt4Table.getFloatArrayTopic("eulerAngles").subscribe(new float[] {0.0f, 0.0f, 0.0f});
 	private final DoubleSubscriber questBatteryPercent = nt4Table.getDoubleTopic("device/batteryPercent").subscribe(0.0f);
+	// queued, so every sample is read once with its own timestamp; only readSamples() may read these
+	private final DoubleSubscriber questTimestampQueue = nt4Table.getDoubleTopic("timestamp").subscribe(0.0, PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_DEPTH));
+	private final FloatArraySubscriber questPositionQueue = nt4Table.getFloatArrayTopic("position").subscribe(new float[] {0.0f, 0.0f, 0.0f}, PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_DEPTH));
+	private final FloatArraySubscriber questEulerAnglesQueue = nt4Table.getFloatArrayTopic("eulerAngles").subscribe(new float[] {0.0f, 0.0f, 0.0f}, PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_DEPTH));
+	private final IntegerPublisher unpairedSamplesPublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getIntegerTopic("questnav/unpairedSamples").publish();
+	private final IntegerPublisher duplicateSamplesPublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getIntegerTopic("questnav/duplicateSamples").publish();
+	private long unpairedSamples = 0;
+	private long duplicateSamples = 0;
+	private double lastQuestTimestamp = Double.NEGATIVE_INFINITY;
 	// Local heading helper variables
 	private float yaw_offset = 0.0f;
 	private Translation2d questNavRawToFieldCoordinateSystem = new Translation2d();
@@ -37,7 +67,75 @@ public final class QuestNav {
 	public Pose2d getPose() {
 		// System.out.println("QNR -> FCS: " + questNavRawToFieldCoordinateSystem);
 
-		return new Pose2d(getQuestNavPose().getTranslation().rotateBy(gyroResetAngle.plus(Rotation2d.k180deg)).plus(questNavRawToFieldCoordinateSystem), getOculusRot2d());
+		return getFieldPose(questPosition.get(), questEulerAngles.get());
+	}
+	
+	/**
+	 * @return Where the headset measured the robot to be in one sample, on the field.
+	 */
+	public Pose2d getPose(QuestNavSample sample) {
+		return getFieldPose(sample.position(), sample.eulerAngles());
+	}
+	
+	private Pose2d getFieldPose(float[] position, float[] eulerAngles) {
+		return new Pose2d(getQuestNavTranslation(position).rotateBy(gyroResetAngle.plus(Rotation2d.k180deg)).plus(questNavRawToFieldCoordinateSystem), getOculusRot2d(eulerAngles));
+	}
+	
+	/**
+	 * Every sample the headset has published since the last call, oldest first. The position, angles and timestamp queues are read together
+	 * and paired by server time, so each sample's values are from the same update. Values with no partner, and samples with a headset
+	 * timestamp no newer than the last one returned, are skipped and counted on NetworkTables.
+	 * <p>
+	 * The queues are shared, so only one caller should use this: {@link frc.robot.subsystems.vision.VisionIOQuestNav}. Call it once per loop.
+	 *
+	 * @return The new samples, which may be none
+	 */
+	public QuestNavSample[] readSamples() {
+		TimestampedFloatArray[] positions = questPositionQueue.readQueue();
+		TimestampedFloatArray[] angles = questEulerAnglesQueue.readQueue();
+		TimestampedDouble[] timestamps = questTimestampQueue.readQueue();
+		
+		QuestNavSample[] samples = new QuestNavSample[positions.length];
+		int count = 0;
+		int angleIndex = 0;
+		int timestampIndex = 0;
+		int pairedAngles = 0;
+		for (TimestampedFloatArray position : positions) {
+			// skip angles older than this position; they had no position of their own
+			while (angleIndex < angles.length && angles[angleIndex].serverTime < position.serverTime - PAIRING_TOLERANCE_MICROS) {
+				angleIndex++;
+			}
+			if (angleIndex >= angles.length || angles[angleIndex].serverTime > position.serverTime + PAIRING_TOLERANCE_MICROS) {
+				unpairedSamples++;
+				continue;
+			}
+			TimestampedFloatArray angle = angles[angleIndex++];
+			pairedAngles++;
+			
+			while (timestampIndex < timestamps.length && timestamps[timestampIndex].serverTime < position.serverTime - PAIRING_TOLERANCE_MICROS) {
+				timestampIndex++;
+			}
+			double questTimestamp = Double.NaN;
+			if (timestampIndex < timestamps.length && timestamps[timestampIndex].serverTime <= position.serverTime + PAIRING_TOLERANCE_MICROS) {
+				questTimestamp = timestamps[timestampIndex++].value;
+				if (questTimestamp <= lastQuestTimestamp) {
+					duplicateSamples++;
+					continue;
+				}
+				lastQuestTimestamp = questTimestamp;
+			}
+			
+			if (position.value.length < 3 || angle.value.length < 3) {
+				continue;
+			}
+			// timestamp is when the value was published, converted to the local (FPGA) time base, in microseconds
+			samples[count++] = new QuestNavSample(position.timestamp / 1e6, questTimestamp, position.value, angle.value);
+		}
+		unpairedSamples += angles.length - pairedAngles;
+		
+		unpairedSamplesPublisher.set(unpairedSamples);
+		duplicateSamplesPublisher.set(duplicateSamples);
+		return count == samples.length ? samples : Arrays.copyOf(samples, count);
 	}
 	
 	// Gets the battery percent of the Quest.
@@ -60,11 +158,6 @@ public final class QuestNav {
 		return new Quaternion(qqFloats[0], qqFloats[1], qqFloats[2], qqFloats[3]);
 	}
 	
-	// Gets the Quests's timestamp in NT server time.
-	public double timestamp() {
-		return questTimestamp.getAtomic().serverTime;
-	}
-	
 	// Clean up questnav subroutine messages after processing on the headset
 	public void cleanUpQuestNavMessages() {
 		if (questMiso.get() == 99) {
@@ -73,8 +166,7 @@ public final class QuestNav {
 	}
 	
 	// Get the yaw Euler angle of the headset
-	private float getOculusYaw() {
-		float[] eulerAngles = questEulerAngles.get();
+	private float getOculusYaw(float[] eulerAngles) {
 		var ret = eulerAngles[1] - yaw_offset;
 		ret %= 360;
 		if (ret < 0) {
@@ -83,18 +175,12 @@ public final class QuestNav {
 		return ret;
 	}
 	
-	private Translation2d getQuestNavTranslation() {
-		float[] questnavPosition = questPosition.get();
+	private Translation2d getQuestNavTranslation(float[] questnavPosition) {
 		return new Translation2d(questnavPosition[2], -questnavPosition[0]);
 	}
 
-	private Rotation2d getOculusRot2d() {
-		return Rotation2d.kZero.minus(Rotation2d.fromDegrees(getOculusYaw())).plus(gyroResetAngle);
-	}
-	
-	private Pose2d getQuestNavPose() {
-		var oculousPositionCompensated = getQuestNavTranslation(); // 6.5
-		return new Pose2d(oculousPositionCompensated, getOculusRot2d());
+	private Rotation2d getOculusRot2d(float[] eulerAngles) {
+		return Rotation2d.kZero.minus(Rotation2d.fromDegrees(getOculusYaw(eulerAngles))).plus(gyroResetAngle);
 	}
 	
 	public void resetPose(Pose2d pose) {
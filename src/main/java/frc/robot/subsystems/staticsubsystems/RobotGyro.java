@@ -2,32 +2,73 @@ package frc.robot.subsystems.staticsubsystems;
 
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.units.measure.MutAngularVelocity;
-import edu.wpi.first.wpilibj.ADIS16470_IMU;
 import edu.wpi.first.wpilibj.ADIS16470_IMU.IMUAxis;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.subsystems.staticsubsystems.GyroIO.GyroIOInputs;
+import frc.robot.subsystems.swerve.SwerveSimulation;
+import org.littletonrobotics.junction.Logger;
 
 import static edu.wpi.first.units.Units.DegreesPerSecond;
 
 /**
- * Wrapper around gyro
+ * Wrapper around gyro. The gyro itself is a {@link GyroIO} picked by {@link SimulationConstants#CURRENT_MODE}; readings come from its inputs,
+ * which are updated once per loop by {@link #updateInputs()}.
  */
 
 public final class RobotGyro {
-    private static final ADIS16470_IMU gyro = new ADIS16470_IMU();
+    private static final GyroIO io = switch (SimulationConstants.CURRENT_MODE) {
+        case REAL -> new GyroIOADIS16470();
+        case SIM -> new GyroIOSim(SwerveSimulation.getDriveSimulation().getGyroSimulation());
+        case REPLAY -> new GyroIO() {};
+    };
+    private static final GyroIOInputs inputs = new GyroIOInputs();
     private static final MutAngularVelocity yawVel = new MutAngularVelocity(0, 0, DegreesPerSecond);
-    private static double angleAdjust = 0;
+    private static volatile double angleAdjust = 0; // read by the odometry thread
 
     static {
-        // TODO fix tje gy ro!!!
-        // gyro.setYawAxis(ADIS16470_IMU.IMUAxis.kZ);
-        gyro.calibrate();
-        gyro.reset();
+        io.updateInputs(inputs);
     }
 
     private RobotGyro() {
     }
 
+    /**
+     * Read the gyro for this loop. Called at the start of every loop, before anything reads the gyro.
+     */
+    public static void updateInputs() {
+        io.updateInputs(inputs);
+        Logger.processInputs("Gyro", inputs);
+    }
+
+    /**
+     * Record this loop's high-frequency yaw samples. These are drained by the drivetrain after {@link #updateInputs()} has run, so the
+     * gyro inputs are logged a second time with them; the rest of the inputs are unchanged by this.
+     *
+     * @param timestamps The timestamps of the samples, in seconds
+     * @param yawDegrees The yaw of each sample, as returned by {@link #getOdometryYawDegrees()}
+     */
+    public static void updateOdometryInputs(double[] timestamps, double[] yawDegrees) {
+        inputs.odometryTimestamps = timestamps;
+        inputs.odometryYawDegrees = yawDegrees;
+        Logger.processInputs("Gyro", inputs);
+    }
+
+    /**
+     * @return The timestamps of this loop's high-frequency odometry samples, oldest first, in seconds.
+     */
+    public static double[] getOdometryTimestamps() {
+        return inputs.odometryTimestamps;
+    }
+
+    /**
+     * @return The yaw of each of this loop's high-frequency odometry samples, in degrees. Matches {@link #getOdometryTimestamps()}.
+     */
+    public static double[] getOdometryYawSamples() {
+        return inputs.odometryYawDegrees;
+    }
+
     public static MutAngularVelocity getYawAngularVelocity() {
-        return yawVel.mut_setMagnitude(gyro.getRate());
+        return yawVel.mut_setMagnitude(inputs.yawVelocityDegreesPerSec);
     }
 
     /**
@@ -44,7 +85,7 @@ public final class RobotGyro {
      */
     public static Rotation2d getRotation2d() {
         // TODO: who knows if this is supposed to be negative or not -- TEST!
-        return new Rotation2d(Math.toRadians(gyro.getAngle(IMUAxis.kZ) + angleAdjust));
+        return new Rotation2d(Math.toRadians(inputs.zAngleDegrees + angleAdjust));
     }
 
     /**
@@ -53,7 +94,16 @@ public final class RobotGyro {
      * @return The robot's current yaw value.
      */
     public static double getGyroAngleDegreesYaw() {
-        return gyro.getAngle(IMUAxis.kZ) + angleAdjust;
+        return inputs.zAngleDegrees + angleAdjust;
+    }
+
+    /**
+     * Same as {@link #getGyroAngleDegreesYaw()}, but read directly from the gyro so it is safe to call from the odometry thread.
+     *
+     * @return The robot's current yaw value.
+     */
+    public static double getOdometryYawDegrees() {
+        return io.getOdometryYawDegrees() + angleAdjust;
     }
 
     /**
@@ -62,11 +112,16 @@ public final class RobotGyro {
      * @return The robot's current roll value.
      */
     public static double getGyroAngleDegreesRoll() {
-        return gyro.getXComplementaryAngle() + angleAdjust;
+        return inputs.xComplementaryAngleDegrees + angleAdjust;
     }
 
     public static double getGyroAngleByAxis(IMUAxis axis) {
-        return gyro.getAngle(axis);
+        // the ADIS16470 defaults to yaw = Z, pitch = X, roll = Y
+        return switch (axis) {
+            case kX, kPitch -> inputs.xAngleDegrees;
+            case kY, kRoll -> inputs.yAngleDegrees;
+            case kZ, kYaw -> inputs.zAngleDegrees;
+        };
     }
 
     /**
@@ -75,27 +130,30 @@ public final class RobotGyro {
      * @return The robot's current pitch value.
      */
     public static double getGyroAngleDegreesPitch() {
-        return gyro.getYComplementaryAngle() + angleAdjust;
+        return inputs.yComplementaryAngleDegrees + angleAdjust;
     }
 
     public static double getAccelX() {
-        return gyro.getAccelX();
+        return inputs.accelX;
     }
 
     public static double getAccelY() {
-        return gyro.getAccelY();
+        return inputs.accelY;
     }
 
     public static double getAccelZ() {
-        return gyro.getAccelZ();
+        return inputs.accelZ;
     }
 
     /**
      * Reset the gyro such that the current heading is equal to 0.
      */
     public static void resetGyroAngle() {
-        gyro.reset();
-        gyro.setGyroAngle(IMUAxis.kZ, 0);
+        io.reset();
+        // so the reset is seen before the next updateInputs()
+        inputs.xAngleDegrees = 0;
+        inputs.yAngleDegrees = 0;
+        inputs.zAngleDegrees = 0;
         QuestNav.INSTANCE.resetHeading(new Rotation2d());
         angleAdjust = 0;
     }
@@ -115,6 +173,6 @@ public final class RobotGyro {
      * Rerun gyro calibration. The robot should not be moving, or need to be moving soon, when this occurs.
      */
     public static void robotCalibrate() {
-        gyro.calibrate();
+        io.calibrate();
     }
 }
@@ -4,14 +4,17 @@
 
 package frc.robot.subsystems.swerve;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.config.PIDConstants;
 import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import com.pathplanner.lib.util.DriveFeedforwards;
+import com.pathplanner.lib.util.swerve.SwerveSetpoint;
+import com.pathplanner.lib.util.swerve.SwerveSetpointGenerator;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.Nat;
-import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -20,11 +23,16 @@ import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.networktables.DoubleArrayPublisher;
 import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StructArrayPublisher;
 import edu.wpi.first.networktables.StructPublisher;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -34,20 +42,29 @@ import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.PortConstants;
 import frc.robot.Constants.RobotConstants;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.Constants.SimulationConstants.Mode;
 import frc.robot.Flags;
 import frc.robot.Robot;
+import frc.robot.commands.drive.pathfinding.Pathfinder2;
 import frc.robot.commands.drive.pathfinding.PathfindingManager;
 import frc.robot.commands.drive.pathfinding.pathfinders.LocalADStar2;
+import frc.robot.commands.drive.pathfinding.pathfinders.PathfindingService;
+import frc.robot.commands.drive.pathfinding.pathfinders.RemotePathfinder;
+import frc.robot.commands.drive.pathfinding.replay.RecordingPathfinder;
 import frc.robot.subsystems.staticsubsystems.LimeLight;
-import frc.robot.subsystems.staticsubsystems.LimeLight.LimeyApriltagReading;
 import frc.robot.subsystems.staticsubsystems.QuestNav;
 import frc.robot.subsystems.staticsubsystems.RoboGUI;
 import frc.robot.subsystems.staticsubsystems.RobotGyro;
 import frc.robot.util.NetworkTablesUtil;
+import frc.robot.util.PoseHistory;
 import frc.robot.util.Util;
+import org.ejml.simple.SimpleMatrix;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static edu.wpi.first.units.Units.RadiansPerSecond;
@@ -57,9 +74,22 @@ import static edu.wpi.first.units.Units.RadiansPerSecond;
  */
 public class DriveTrainSubsystem extends SubsystemBase {
 	public static final DoubleArrayPublisher pathfinderPathPub = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleArrayTopic("pathfinder").publish();
+	public static final DoubleArrayPublisher pathfinderProgressPub = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleArrayTopic("pathfinder_progress").publish();
 	public static final DoubleArrayPublisher connectionPathPub = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleArrayTopic("connection_path").publish();
 	public static final double MAX_SPEED_METERS_PER_SEC = Flags.DriveTrain.LOWER_MAX_SPEED ? 1.5 : 3;
 	public static final double MAX_ROT_SPEED_ANGULAR = 3;
+	/**
+	 * Fastest the turn motors can rotate a module, used to limit steering in the setpoint generator. NEO free speed through the 150/7 steering reduction is ~27 rad/s; this leaves headroom for the PID to settle.
+	 */
+	private static final double MAX_MODULE_STEER_VELOCITY_RAD_PER_SEC = 20;
+	/**
+	 * If the setpoint generator hasn't been used for this long (disabled, or the modules were driven directly), the next setpoint starts from the measured module states instead of the last setpoint.
+	 */
+	private static final double SETPOINT_RESET_SECONDS = 0.1;
+	/**
+	 * 128 loops is ~2.5 seconds of pose history, far more than any camera's latency.
+	 */
+	private static final int POSE_HISTORY_CAPACITY = 128;
 	private static final DoubleArrayPublisher rawPosePub = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleArrayTopic("raw_pose").publish();
 	private static final DoubleArrayPublisher chosenPathPub = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleArrayTopic("chosen_path").publish();
 	private static final boolean INVERT_DRIVE_MOTORS = true;
@@ -74,42 +104,54 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	// public static final double MAX_ANGULAR_SPEED = Math.PI; // 1/2 rotation per second
 	final double LOCK_HEADING_THRESHOLD = 0.1; // TODO: test if when rotate without translating
 	
-	private final SwerveModule frontLeft = new SwerveModule(
+	private final SwerveModule frontLeft = createModule(
+		0,
 		PortConstants.CAN.DTRAIN_FRONT_LEFT_DRIVE_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_FRONT_LEFT_ROTATION_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_FRONT_LEFT_CANCODER_ID,
-		"fL_12",
-		INVERT_DRIVE_MOTORS,
-		true
+		"fL_12"
 	);
-	private final SwerveModule frontRight = new SwerveModule(
+	private final SwerveModule frontRight = createModule(
+		1,
 		PortConstants.CAN.DTRAIN_FRONT_RIGHT_DRIVE_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_FRONT_RIGHT_ROTATION_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_FRONT_RIGHT_CANCODER_ID,
-		"fR_03",
-		INVERT_DRIVE_MOTORS,
-		true
+		"fR_03"
 	);
-	private final SwerveModule backLeft = new SwerveModule(
+	private final SwerveModule backLeft = createModule(
+		2,
 		PortConstants.CAN.DTRAIN_BACK_LEFT_DRIVE_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_BACK_LEFT_ROTATION_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_BACK_LEFT_CANCODER_ID,
-		"bL_06",
-		INVERT_DRIVE_MOTORS,
-		true
+		"bL_06"
 	);
-	private final SwerveModule backRight = new SwerveModule(
+	private final SwerveModule backRight = createModule(
+		3,
 		PortConstants.CAN.DTRAIN_BACK_RIGHT_DRIVE_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_BACK_RIGHT_ROTATION_MOTOR_ID,
 		PortConstants.CAN.DTRAIN_BACK_RIGHT_CANCODER_ID,
-		"bR_01",
-		INVERT_DRIVE_MOTORS,
-		true
+		"bR_01"
 	);
 	public final SwerveModule[] swerveModules = {frontLeft, frontRight, backLeft, backRight};
+	// every module's CANcoder signals, refreshed together once per loop
+	private final BaseStatusSignal[] moduleStatusSignals = Arrays.stream(swerveModules).flatMap(module -> Arrays.stream(module.getStatusSignals())).toArray(BaseStatusSignal[]::new);
+	// filled in place each loop, see Flags.DriveTrain.REUSE_MODULE_STATE_BUFFERS
+	private final SwerveModulePosition[] modulePositionsBuffer = new SwerveModulePosition[4];
+	private final SwerveModuleState[] absoluteStatesBuffer = new SwerveModuleState[4];
+	private final SwerveModuleState[] relativeStatesBuffer = new SwerveModuleState[4];
 	
 	private final SwerveDriveKinematics kinematics = new SwerveDriveKinematics(frontLeftLocation, frontRightLocation, backLeftLocation, backRightLocation);
+	/**
+	 * Rows are vx, vy, omega; columns are the x and y velocity of each module in turn. Same as the kinematics' forward kinematics matrix,
+	 * but kept as plain doubles so measured chassis speeds can be computed without allocating matrices.
+	 */
+	private static final double[][] forwardKinematics = computeForwardKinematics(frontLeftLocation, frontRightLocation, backLeftLocation, backRightLocation);
 	private final SwerveDrivePoseEstimator poseEstimator = new SwerveDrivePoseEstimator(kinematics, RobotGyro.getRotation2d(), this.getAbsoluteModulePositions(), new Pose2d(), new Matrix<>(Nat.N3(), Nat.N1(), new double[] {0.1, 0.1, 0.1}), new Matrix<>(Nat.N3(), Nat.N1(), new double[] {0.01, 0.01, 0.1}));
+	private final OdometryThread odometryThread = new OdometryThread(swerveModules);
+	// reused for every high-frequency odometry sample; the pose estimator copies what it keeps
+	private final SwerveModulePosition[] odometrySamplePositions = {new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()};
+	// the estimated pose at the end of each loop, for looking up where the robot was when a camera frame was captured
+	private final PoseHistory poseHistory = new PoseHistory(POSE_HISTORY_CAPACITY);
 	private final Field2d field = new Field2d();
 	private final Field2d pfField = new Field2d();
 	private final Field2d estimatedField = new Field2d();
@@ -140,6 +182,13 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	private RobotConfig config;
 	private boolean has = false;
 	
+	// see Flags.DriveTrain.USE_SWERVE_SETPOINT_GENERATOR. Null if the RobotConfig couldn't be loaded.
+	private SwerveSetpointGenerator setpointGenerator;
+	private SwerveSetpoint previousSetpoint;
+	private double lastSetpointTime = Double.NEGATIVE_INFINITY;
+	// the modules may optimize their desired states in place, so they get copies rather than the generator's own states
+	private final SwerveModuleState[] setpointStatesBuffer = {new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()};
+	
 	// private final AprilTagHandler aprilTagHandler;
 	public DriveTrainSubsystem(/*AprilTagHandler aprilTagHandler*/) {
 		this.reefedPathfindingManagers = Util.createIfFlagElseNull(() -> { // https://www.desmos.com/calculator/esepl3jdzw target a path length of 0.75m
@@ -184,8 +233,24 @@ public class DriveTrainSubsystem extends SubsystemBase {
 		
 		this.configureAutoBuilder();
 		
+		if (Flags.DriveTrain.ENABLE_HIGH_FREQUENCY_ODOMETRY && SimulationConstants.CURRENT_MODE == Mode.REAL) {
+			odometryThread.start();
+		}
+		
 		System.out.println("Initialized DriveTrainSubsystem");
-		PathfindingManager.configurePathfinder(new LocalADStar2());
+		Pathfinder2 pathfinder;
+		if (Flags.DriveTrain.USE_REMOTE_PATHFINDER) {
+			if (Flags.DriveTrain.RUN_PATHFINDING_SERVICE_IN_SIM && Util.isSim()) {
+				new PathfindingService(NetworkTableInstance.getDefault());
+			}
+			pathfinder = new RemotePathfinder();
+		} else {
+			pathfinder = new LocalADStar2();
+		}
+		if (Flags.DriveTrain.RECORD_PATHFINDING) {
+			pathfinder = new RecordingPathfinder(pathfinder, RecordingPathfinder.newLogFile());
+		}
+		PathfindingManager.configurePathfinder(pathfinder);
 		
 		if (Flags.DriveTrain.ENABLE_DYNAMIC_PATHFINDING && Util.isSim()) {
 			System.out.println("pathplanner test");
@@ -198,6 +263,20 @@ public class DriveTrainSubsystem extends SubsystemBase {
 		// setPose(new Pose2d(5.75, 1.55, Rotation2d.fromDegrees(124)));
 	}
 	
+	/**
+	 * Create a swerve module backed by the hardware, a simulation, or nothing (for log replay), depending on {@link SimulationConstants#CURRENT_MODE}.
+	 *
+	 * @param index The module's index in the kinematics (FL, FR, BL, BR), which is also its index in the simulated drivetrain
+	 */
+	private static SwerveModule createModule(int index, int driveMotorCANID, int turningMotorCANID, int turningEncoderCANID, String name) {
+		ModuleIO io = switch (SimulationConstants.CURRENT_MODE) {
+			case REAL -> new ModuleIOSpark(driveMotorCANID, turningMotorCANID, turningEncoderCANID, name, INVERT_DRIVE_MOTORS, true);
+			case SIM -> new ModuleIOSim(SwerveSimulation.getDriveSimulation().getModules()[index]);
+			case REPLAY -> new ModuleIO() {};
+		};
+		return new SwerveModule(io, name);
+	}
+	
 	public static double flipFactor() {
 	    if (Util.onBlueTeam()) {
 	        return 1;
@@ -214,6 +293,10 @@ public class DriveTrainSubsystem extends SubsystemBase {
 			e.printStackTrace();
 		}
 		
+		if (config != null) {
+			setpointGenerator = new SwerveSetpointGenerator(config, MAX_MODULE_STEER_VELOCITY_RAD_PER_SEC);
+		}
+		
 		AutoBuilder.configure(
 			this::getPose,
 			this::setPose,
@@ -248,6 +331,12 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	 * @return The position of all swerve modules, with module heading determined by the CANCoder's relative mode.
 	 */
 	public SwerveModulePosition[] getAbsoluteModulePositions() {
+		if (Flags.DriveTrain.REUSE_MODULE_STATE_BUFFERS) {
+			for (int i = 0; i < swerveModules.length; i++) {
+				modulePositionsBuffer[i] = swerveModules[i].getAbsoluteModulePositionBuffer();
+			}
+			return modulePositionsBuffer;
+		}
 		return new SwerveModulePosition[] {
 			frontLeft.getAbsoluteModulePosition(),
 			frontRight.getAbsoluteModulePosition(),
@@ -257,9 +346,39 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	}
 	
 	public void consumeChassisSpeeds(ChassisSpeeds chassisSpeeds) {
+		if (Flags.DriveTrain.USE_SWERVE_SETPOINT_GENERATOR && setpointGenerator != null) {
+			this.driveWithSetpointGenerator(chassisSpeeds);
+			return;
+		}
 		this.consumeRawModuleStates(kinematics.toSwerveModuleStates(chassisSpeeds));
 	}
 	
+	/**
+	 * Drive at robot relative chassis speeds through the setpoint generator, which limits each module's steering rate and wheel acceleration
+	 * (from the {@link RobotConfig}) so that every commanded state is one the modules can actually reach by the next loop.
+	 *
+	 * @param robotRelativeSpeeds The desired robot relative speeds. Should already be within the robot's maximum speed.
+	 */
+	private void driveWithSetpointGenerator(ChassisSpeeds robotRelativeSpeeds) {
+		double now = Timer.getFPGATimestamp();
+		if (previousSetpoint == null || now - lastSetpointTime > SETPOINT_RESET_SECONDS) {
+			SwerveModuleState[] measuredStates = new SwerveModuleState[swerveModules.length];
+			for (int i = 0; i < swerveModules.length; i++) {
+				measuredStates[i] = swerveModules[i].getAbsoluteModuleState();
+			}
+			previousSetpoint = new SwerveSetpoint(getRobotRelativeChassisSpeeds(), measuredStates, DriveFeedforwards.zeros(swerveModules.length));
+		}
+		previousSetpoint = setpointGenerator.generateSetpoint(previousSetpoint, robotRelativeSpeeds, TimedRobot.kDefaultPeriod);
+		lastSetpointTime = now;
+		
+		SwerveModuleState[] states = previousSetpoint.moduleStates();
+		for (int i = 0; i < swerveModules.length; i++) {
+			setpointStatesBuffer[i].speedMetersPerSecond = states[i].speedMetersPerSecond;
+			setpointStatesBuffer[i].angle = states[i].angle;
+			swerveModules[i].setDesiredState(setpointStatesBuffer[i], i);
+		}
+	}
+	
 	/**
 	 * The robot's current estimated pose, as estimated by the pose estimator using motor rotations and vision measurements.
 	 *
@@ -269,6 +388,18 @@ public class DriveTrainSubsystem extends SubsystemBase {
 		return this.poseEstimator.getEstimatedPosition();
 	}
 	
+	/**
+	 * Where the robot was at some recent time, interpolated from the estimated pose at the end of each loop. Used to compare vision
+	 * measurements against the pose at the moment their frame was captured rather than the pose now.
+	 *
+	 * @param timestamp The FPGA timestamp, in seconds
+	 * @return The estimated pose at that time, or empty if the timestamp is older than the history (or newer than the latest loop, by more than
+	 * a little).
+	 */
+	public Optional<Pose2d> getPoseAt(double timestamp) {
+		return poseHistory.getPoseAt(timestamp);
+	}
+	
 	/**
 	 * Set the robot's current pose
 	 *
@@ -278,6 +409,11 @@ public class DriveTrainSubsystem extends SubsystemBase {
 		RobotGyro.setGyroAngle(pose.getRotation().getDegrees());
 		// System.out.println(RobotGyro.getRotation2d());
 		poseEstimator.resetPosition(pose.getRotation(), this.getAbsoluteModulePositions(), pose);
+		odometryThread.clear(); // samples from before the reset would drag the pose back
+		poseHistory.clear();
+		if (SimulationConstants.CURRENT_MODE == Mode.SIM) {
+			SwerveSimulation.resetPose(pose);
+		}
 		
 		QuestNav.INSTANCE.resetPose(pose);
 		QuestNav.INSTANCE.resetHeading(pose.getRotation());
@@ -289,6 +425,21 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	 * @return The current chassis speeds of the robot, relative to the robot.
 	 */
 	public ChassisSpeeds getRobotRelativeChassisSpeeds() {
+		if (Flags.DriveTrain.REUSE_MODULE_STATE_BUFFERS) {
+			// still returns a new ChassisSpeeds since callers (e.g. pathfinding) hold on to it, but skips the states and matrices
+			double vx = 0;
+			double vy = 0;
+			double omega = 0;
+			for (int i = 0; i < swerveModules.length; i++) {
+				SwerveModuleState state = swerveModules[i].getAbsoluteModuleStateBuffer();
+				double moduleVx = state.speedMetersPerSecond * state.angle.getCos();
+				double moduleVy = state.speedMetersPerSecond * state.angle.getSin();
+				vx += forwardKinematics[0][2 * i] * moduleVx + forwardKinematics[0][2 * i + 1] * moduleVy;
+				vy += forwardKinematics[1][2 * i] * moduleVx + forwardKinematics[1][2 * i + 1] * moduleVy;
+				omega += forwardKinematics[2][2 * i] * moduleVx + forwardKinematics[2][2 * i + 1] * moduleVy;
+			}
+			return new ChassisSpeeds(vx, vy, omega);
+		}
 		return kinematics.toChassisSpeeds(
 			frontLeft.getAbsoluteModuleState(),
 			frontRight.getAbsoluteModuleState(),
@@ -359,6 +510,12 @@ public class DriveTrainSubsystem extends SubsystemBase {
 		SwerveModuleState[] swerveModuleStates = kinematics.toSwerveModuleStates(chassisSpeeds);
 		
 		SwerveDriveKinematics.desaturateWheelSpeeds(swerveModuleStates, MAX_SPEED_METERS_PER_SEC);
+		if (Flags.DriveTrain.USE_SWERVE_SETPOINT_GENERATOR && setpointGenerator != null) {
+			// the generator only knows the module's physical top speed, so cap at our max speed before handing it the desaturated speeds
+			this.driveWithSetpointGenerator(kinematics.toChassisSpeeds(swerveModuleStates));
+			targetSwerveStatePublisher.set(optimizedTargetStates);
+			return;
+		}
 		frontLeft.setDesiredState(swerveModuleStates[0], 0);
 		frontRight.setDesiredState(swerveModuleStates[1], 1);
 		backLeft.setDesiredState(swerveModuleStates[2], 2);
@@ -464,11 +621,29 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	
 	@Override
 	public void periodic() {
+		if (moduleStatusSignals.length > 0) {
+			BaseStatusSignal.refreshAll(moduleStatusSignals);
+		}
+		// empty unless the odometry thread is running; logged with the inputs so replay sees the same samples
+		OdometryThread.Samples odometrySamples = odometryThread.drain();
+		for (int i = 0; i < swerveModules.length; i++) {
+			swerveModules[i].updateInputs(odometrySamples.timestamps(), odometrySamples.drivePositions()[i], odometrySamples.turnPositions()[i]);
+		}
+		RobotGyro.updateOdometryInputs(odometrySamples.timestamps(), odometrySamples.yawDegrees());
 		Pose2d current = this.getPose();
 		//publishes each wheel information to network table for debugging
-		realSwerveStatePublisher.set(new SwerveModuleState[] {frontLeft.getAbsoluteModuleState(), frontRight.getAbsoluteModuleState(), backLeft.getAbsoluteModuleState(), backRight.getAbsoluteModuleState()});
+		if (Flags.DriveTrain.REUSE_MODULE_STATE_BUFFERS) {
+			for (int i = 0; i < swerveModules.length; i++) {
+				absoluteStatesBuffer[i] = swerveModules[i].getAbsoluteModuleStateBuffer();
+				relativeStatesBuffer[i] = swerveModules[i].getRelativeModuleStateBuffer();
+			}
+			realSwerveStatePublisher.set(absoluteStatesBuffer);
+			relativeSwerveStatePublisher.set(relativeStatesBuffer);
+		} else {
+			realSwerveStatePublisher.set(new SwerveModuleState[] {frontLeft.getAbsoluteModuleState(), frontRight.getAbsoluteModuleState(), backLeft.getAbsoluteModuleState(), backRight.getAbsoluteModuleState()});
+			relativeSwerveStatePublisher.set(new SwerveModuleState[] {frontLeft.getRelativeModuleState(), frontRight.getRelativeModuleState(), backLeft.getRelativeModuleState(), backRight.getRelativeModuleState()});
+		}
 		// absoluteAbsoluteSwerveStatePublisher.set(new SwerveModuleState[]{frontLeft.getAbsoluteAbsoluteModuleState(), frontRight.getAbsoluteAbsoluteModuleState(), backLeft.getAbsoluteAbsoluteModuleState(), backRight.getAbsoluteAbsoluteModuleState()});
-		relativeSwerveStatePublisher.set(new SwerveModuleState[] {frontLeft.getRelativeModuleState(), frontRight.getRelativeModuleState(), backLeft.getRelativeModuleState(), backRight.getRelativeModuleState()});
 		//posts robot position to network table
 		posePositionPublisher.set(current);
 		robotRotationPublisher.set(RobotGyro.getRotation2d());
@@ -558,66 +733,65 @@ public class DriveTrainSubsystem extends SubsystemBase {
 	 * Updates the field relative position of the robot using module state readouts.
 	 */
 	public void updateOdometry() {
-		this.poseEstimator.update(RobotGyro.getRotation2d(), new SwerveModulePosition[] {frontLeft.getAbsoluteModulePosition(), frontRight.getAbsoluteModulePosition(), backLeft.getAbsoluteModulePosition(), backRight.getAbsoluteModulePosition()});
-		if (Flags.DriveTrain.ENABLE_LIMEY_APRILTAGS_ODOMETRY_FUSING) {
-			updateOdometryWithLimeyApriltags();
+		// only ever read from the inputs, never from the odometry thread directly, so this is the same in replay
+		double[] timestamps = RobotGyro.getOdometryTimestamps();
+		double[] yawDegrees = RobotGyro.getOdometryYawSamples();
+		int samples = Math.min(timestamps.length, yawDegrees.length);
+		for (SwerveModule module : swerveModules) {
+			samples = Math.min(samples, Math.min(module.getOdometryDrivePositions().length, module.getOdometryTurnPositions().length));
+		}
+		for (int n = 0; n < samples; n++) {
+			for (int i = 0; i < swerveModules.length; i++) {
+				odometrySamplePositions[i].distanceMeters = swerveModules[i].getOdometryDrivePositions()[n];
+				odometrySamplePositions[i].angle = new Rotation2d(swerveModules[i].getOdometryTurnPositions()[n]);
+			}
+			this.poseEstimator.updateWithTime(timestamps[n], Rotation2d.fromDegrees(yawDegrees[n]), odometrySamplePositions);
 		}
-		if (Flags.DriveTrain.ENABLE_OCULUS_ODOMETRY_FUSING) {
-			updateOdometryWithOculus();
+		if (samples == 0) {
+			// nothing from the odometry thread (disabled or stalled), so sample once here like before
+			this.poseEstimator.update(RobotGyro.getRotation2d(), this.getAbsoluteModulePositions());
 		}
+		
+		Pose2d pose = this.getPose();
+		ChassisSpeeds speeds = this.getRobotRelativeChassisSpeeds();
+		double cos = pose.getRotation().getCos();
+		double sin = pose.getRotation().getSin();
+		poseHistory.add(
+			Timer.getFPGATimestamp(),
+			pose.getX(),
+			pose.getY(),
+			pose.getRotation().getRadians(),
+			speeds.vxMetersPerSecond * cos - speeds.vyMetersPerSecond * sin,
+			speeds.vxMetersPerSecond * sin + speeds.vyMetersPerSecond * cos,
+			speeds.omegaRadiansPerSecond
+		);
 	}
 	
-	public void updateOdometryWithOculus() {
-		if (QuestNav.INSTANCE.connected()) {
-			Pose2d oculus = QuestNav.INSTANCE.getPose();
-			this.poseEstimator.addVisionMeasurement(oculus, QuestNav.INSTANCE.timestamp(), VecBuilder.fill(0.007, 0.007, 0.1));
-		} else {
-			DriverStation.reportWarning("Oculus not connected!", false);
-		}
+	/**
+	 * Add a pose measured by a camera (or the QuestNav) to the pose estimator, at the time it was measured. Called by
+	 * {@link frc.robot.subsystems.vision.Vision} for every observation it accepts.
+	 *
+	 * @param visionPose The measured robot pose
+	 * @param timestamp  The FPGA timestamp of the measurement, in seconds
+	 * @param stdDevs    Standard deviations of the measurement's x, y (meters) and heading (radians)
+	 */
+	public void addVisionMeasurement(Pose2d visionPose, double timestamp, Matrix<N3, N1> stdDevs) {
+		this.poseEstimator.addVisionMeasurement(visionPose, timestamp, stdDevs);
 	}
 	
-	public void updateOdometryWithLimeyApriltags() {
-		if (LimeLight.isLimeyConnected()) {
-			boolean shouldResetOculus = false;
-			boolean shouldResetFullPose = false;
-			LimeyApriltagReading reading = LimeLight.getLimeyApriltagReading();
-			double correction = Double.POSITIVE_INFINITY;
-			if (reading.exists()) {
-				if (reading.distance() < 0.6) {
-					correction = 0.001; // 0.05 * Math.pow(reading.distance() / 0.61, 6);// Math.pow(0.3 * reading.distance(), 10 / reading.distance());
-					shouldResetOculus = true;
-					shouldResetFullPose = true;
-				} else if (reading.distance() < 0.75) {
-					correction = 0.0025;
-					shouldResetOculus = true;
-					shouldResetFullPose = true;
-				} else if (reading.distance() < 1) {
-					correction = 0.005;
-					shouldResetOculus = true;
-					// shouldResetFullPose = true;
-				} else if (reading.distance() < 1.5) {
-					correction = 0.006;
-					shouldResetOculus = true;
-				} else if (reading.distance() < 1.75) {
-					correction = 0.006;
-					// shouldResetOculus = true;
-				} else if (reading.distance() < 2) {
-					correction = 0.0065;
-					// shouldResetOculus = true;
-				}
-				this.poseEstimator.addVisionMeasurement(reading.pose(), reading.timestamp(), VecBuilder.fill(correction, correction, correction));
-				
-				if (shouldResetFullPose) {
-					// setPose(reading.pose());
-				}
-				
-				if (shouldResetOculus) {
-					// System.out.println("Resetting oculus with limey input");
-					QuestNav.INSTANCE.resetPose(reading.pose());
-				}
+	private static double[][] computeForwardKinematics(Translation2d... moduleLocations) {
+		SimpleMatrix inverseKinematics = new SimpleMatrix(moduleLocations.length * 2, 3);
+		for (int i = 0; i < moduleLocations.length; i++) {
+			inverseKinematics.setRow(2 * i, 0, 1, 0, -moduleLocations[i].getY());
+			inverseKinematics.setRow(2 * i + 1, 0, 0, 1, moduleLocations[i].getX());
+		}
+		SimpleMatrix forward = inverseKinematics.pseudoInverse();
+		double[][] result = new double[3][moduleLocations.length * 2];
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < moduleLocations.length * 2; col++) {
+				result[row][col] = forward.get(row, col);
 			}
-		} else {
-			DriverStation.reportWarning("Limey not connected!", false);
 		}
+		return result;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package frc.robot.subsystems.swerve;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+/**
+ * The hardware behind one swerve module. {@link SwerveModule} only reads the module through {@link ModuleIOInputs} and only moves it through
+ * the setters here, so the same module logic runs against real hardware ({@link ModuleIOSpark}), a physics simulation ({@link ModuleIOSim}),
+ * or nothing at all when replaying a log, in which case the inputs are filled in from the log and this interface's no-op defaults are used.
+ * <p>
+ * All positions are in meters or radians, and all velocities in meters or radians per second. See {@link SwerveModule} for what the three
+ * turn encoder readings mean.
+ */
+public interface ModuleIO {
+    /**
+     * Everything read from the module once per loop. Logged (and replayed) by AdvantageKit.
+     */
+    class ModuleIOInputs implements LoggableInputs {
+        public double drivePositionMeters = 0;
+        public double driveVelocityMetersPerSec = 0;
+        public double driveAppliedVolts = 0;
+        public double driveCurrentAmps = 0;
+
+        public double turnRelativePositionRad = 0;
+        public double turnRelativeVelocityRadPerSec = 0;
+        public double turnAbsPositionRad = 0;
+        public double turnAbsVelocityRadPerSec = 0;
+        public double turnAbsolutelyAbsPositionRad = 0;
+        public double turnAppliedVolts = 0;
+
+        // every OdometryThread sample taken during the loop, oldest first; empty when it isn't running
+        public double[] odometryTimestamps = new double[0];
+        public double[] odometryDrivePositionsMeters = new double[0];
+        public double[] odometryTurnPositionsRad = new double[0];
+
+        @Override
+        public void toLog(LogTable table) {
+            table.put("DrivePositionMeters", drivePositionMeters);
+            table.put("DriveVelocityMetersPerSec", driveVelocityMetersPerSec);
+            table.put("DriveAppliedVolts", driveAppliedVolts);
+            table.put("DriveCurrentAmps", driveCurrentAmps);
+            table.put("TurnRelativePositionRad", turnRelativePositionRad);
+            table.put("TurnRelativeVelocityRadPerSec", turnRelativeVelocityRadPerSec);
+            table.put("TurnAbsPositionRad", turnAbsPositionRad);
+            table.put("TurnAbsVelocityRadPerSec", turnAbsVelocityRadPerSec);
+            table.put("TurnAbsolutelyAbsPositionRad", turnAbsolutelyAbsPositionRad);
+            table.put("TurnAppliedVolts", turnAppliedVolts);
+            table.put("OdometryTimestamps", odometryTimestamps);
+            table.put("OdometryDrivePositionsMeters", odometryDrivePositionsMeters);
+            table.put("OdometryTurnPositionsRad", odometryTurnPositionsRad);
+        }
+
+        @Override
+        public void fromLog(LogTable table) {
+            drivePositionMeters = table.get("DrivePositionMeters", drivePositionMeters);
+            driveVelocityMetersPerSec = table.get("DriveVelocityMetersPerSec", driveVelocityMetersPerSec);
+            driveAppliedVolts = table.get("DriveAppliedVolts", driveAppliedVolts);
+            driveCurrentAmps = table.get("DriveCurrentAmps", driveCurrentAmps);
+            turnRelativePositionRad = table.get("TurnRelativePositionRad", turnRelativePositionRad);
+            turnRelativeVelocityRadPerSec = table.get("TurnRelativeVelocityRadPerSec", turnRelativeVelocityRadPerSec);
+            turnAbsPositionRad = table.get("TurnAbsPositionRad", turnAbsPositionRad);
+            turnAbsVelocityRadPerSec = table.get("TurnAbsVelocityRadPerSec", turnAbsVelocityRadPerSec);
+            turnAbsolutelyAbsPositionRad = table.get("TurnAbsolutelyAbsPositionRad", turnAbsolutelyAbsPositionRad);
+            turnAppliedVolts = table.get("TurnAppliedVolts", turnAppliedVolts);
+            odometryTimestamps = table.get("OdometryTimestamps", odometryTimestamps);
+            odometryDrivePositionsMeters = table.get("OdometryDrivePositionsMeters", odometryDrivePositionsMeters);
+            odometryTurnPositionsRad = table.get("OdometryTurnPositionsRad", odometryTurnPositionsRad);
+        }
+    }
+
+    /**
+     * Read the module's sensors into the inputs. Called once per loop, after the signals from {@link #getStatusSignals()} have been refreshed.
+     *
+     * @param inputs The inputs to fill in
+     */
+    default void updateInputs(ModuleIOInputs inputs) {
+    }
+
+    /**
+     * Run the drive motor's closed loop velocity control.
+     *
+     * @param velocityMetersPerSec The target wheel speed
+     */
+    default void setDriveVelocity(double velocityMetersPerSec) {
+    }
+
+    /**
+     * Run the turn motor's closed loop position control.
+     *
+     * @param positionRad The target module angle, measured by the relative encoder
+     */
+    default void setTurnPosition(double positionRad) {
+    }
+
+    /**
+     * @param output The drive motor's duty cycle, [-1, 1]
+     */
+    default void setDriveOpenLoop(double output) {
+    }
+
+    /**
+     * @param output The turn motor's duty cycle, [-1, 1]
+     */
+    default void setTurnOpenLoop(double output) {
+    }
+
+    default void setDriveVoltage(double volts) {
+    }
+
+    default void setTurnVoltage(double volts) {
+    }
+
+    /**
+     * Set the turn motor's relative encoder to a new position, without moving the module.
+     *
+     * @param positionRad The module's actual angle
+     */
+    default void resetTurnRelativePosition(double positionRad) {
+    }
+
+    /**
+     * @return Status signals that must be refreshed before each {@link #updateInputs(ModuleIOInputs)}, so that every module can be refreshed at once.
+     */
+    default BaseStatusSignal[] getStatusSignals() {
+        return new BaseStatusSignal[0];
+    }
+
+    /**
+     * @return Separate status signals for {@link OdometryThread}, refreshed by that thread before each sample.
+     */
+    default BaseStatusSignal[] getOdometryStatusSignals() {
+        return new BaseStatusSignal[0];
+    }
+
+    /**
+     * Read the drive position directly from the hardware rather than from the inputs. Only for {@link OdometryThread}, which runs on real hardware only.
+     *
+     * @return The drive position in meters
+     */
+    default double getOdometryDrivePosition() {
+        return 0;
+    }
+
+    /**
+     * Read the module angle directly from the hardware rather than from the inputs. Only for {@link OdometryThread}, which runs on real hardware only.
+     * The signals from {@link #getOdometryStatusSignals()} must have been refreshed first.
+     *
+     * @return The absolute encoder's position in radians
+     */
+    default double getOdometryTurnPosition() {
+        return 0;
+    }
+}
@@ -0,0 +1,141 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import org.ironmaple.simulation.drivesims.SwerveModuleSimulation;
+import org.ironmaple.simulation.motorsims.SimulatedMotorController;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static edu.wpi.first.units.Units.Volts;
+
+/**
+ * A simulated swerve module: one of the modules of the maple-sim drivetrain in {@link SwerveSimulation}, so wheel slip, friction and
+ * collisions are all modeled. The closed loops that run on the SPARK MAXes on the real robot run here on the roboRIO instead.
+ * <p>
+ * There is only one simulated turn encoder, so the relative, absolute and absolutely-absolute readings all agree (apart from the wrapping of
+ * the absolutely-absolute one, and the relative one being resettable).
+ */
+public class ModuleIOSim implements ModuleIO {
+    private static final double MAX_VOLTAGE = 12;
+    private static final double DRIVE_CURRENT_LIMIT_AMPS = 40;
+    private static final double TURN_CURRENT_LIMIT_AMPS = 40;
+
+    private static final double DRIVE_KS = 0.1;
+    // volts per m/s of wheel speed, from the NEO's free speed
+    private static final double DRIVE_KV = 1 / (SwerveSimulation.DRIVE_GEARBOX.KvRadPerSecPerVolt / SwerveSimulation.DRIVE_GEARING * SwerveSimulation.WHEEL_RADIUS_METERS);
+    private static final double DRIVE_KP = 1.0;
+    private static final double TURN_KP = 8.0;
+    private static final double TURN_KD = 0;
+
+    private final SwerveModuleSimulation moduleSimulation;
+    private final SimulatedMotorController.GenericMotorController driveMotor;
+    private final SimulatedMotorController.GenericMotorController turnMotor;
+
+    private final SimpleMotorFeedforward driveFeedforward = new SimpleMotorFeedforward(DRIVE_KS, DRIVE_KV);
+    private final PIDController driveController = new PIDController(DRIVE_KP, 0, 0);
+    private final PIDController turnController = new PIDController(TURN_KP, 0, TURN_KD);
+
+    private boolean driveClosedLoop = false;
+    private boolean turnClosedLoop = false;
+    private double driveSetpoint = 0;
+    private double turnSetpoint = 0;
+    private double driveAppliedVolts = 0;
+    private double turnAppliedVolts = 0;
+    // latest measurements, for running the closed loops when a new setpoint comes in between updates
+    private double driveVelocity = 0;
+    private double turnPosition = 0;
+    // the relative encoder can be reset independently of the module's actual angle
+    private double turnRelativeOffsetRad = 0;
+
+    /**
+     * @param moduleSimulation The simulated module, from {@link SwerveSimulation#getDriveSimulation()}
+     */
+    public ModuleIOSim(SwerveModuleSimulation moduleSimulation) {
+        this.moduleSimulation = moduleSimulation;
+        this.driveMotor = moduleSimulation.useGenericMotorControllerForDrive().withCurrentLimit(Amps.of(DRIVE_CURRENT_LIMIT_AMPS));
+        this.turnMotor = moduleSimulation.useGenericControllerForSteer().withCurrentLimit(Amps.of(TURN_CURRENT_LIMIT_AMPS));
+        turnController.enableContinuousInput(-Math.PI, Math.PI);
+    }
+
+    @Override
+    public void updateInputs(ModuleIOInputs inputs) {
+        driveVelocity = moduleSimulation.getDriveWheelFinalSpeed().in(RadiansPerSecond) * SwerveSimulation.WHEEL_RADIUS_METERS;
+        turnPosition = moduleSimulation.getSteerAbsoluteFacing().getRadians();
+        double turnVelocity = moduleSimulation.getSteerAbsoluteEncoderSpeed().in(RadiansPerSecond);
+        this.applyVoltages();
+
+        inputs.drivePositionMeters = moduleSimulation.getDriveWheelFinalPosition().in(Radians) * SwerveSimulation.WHEEL_RADIUS_METERS;
+        inputs.driveVelocityMetersPerSec = driveVelocity;
+        inputs.driveAppliedVolts = driveAppliedVolts;
+        inputs.driveCurrentAmps = Math.abs(moduleSimulation.getDriveMotorStatorCurrent().in(Amps));
+
+        inputs.turnRelativePositionRad = turnPosition + turnRelativeOffsetRad;
+        inputs.turnRelativeVelocityRadPerSec = turnVelocity;
+        inputs.turnAbsPositionRad = turnPosition;
+        inputs.turnAbsVelocityRadPerSec = turnVelocity;
+        inputs.turnAbsolutelyAbsPositionRad = MathUtil.angleModulus(turnPosition);
+        inputs.turnAppliedVolts = turnAppliedVolts;
+    }
+
+    /**
+     * Run the closed loops (if in use) and request the resulting voltages. They are applied when the arena is stepped at the end of the loop.
+     */
+    private void applyVoltages() {
+        if (driveClosedLoop) {
+            driveAppliedVolts = driveFeedforward.calculate(driveSetpoint) + driveController.calculate(driveVelocity, driveSetpoint);
+        }
+        if (turnClosedLoop) {
+            turnAppliedVolts = turnController.calculate(turnPosition + turnRelativeOffsetRad, turnSetpoint);
+        }
+        driveAppliedVolts = MathUtil.clamp(driveAppliedVolts, -MAX_VOLTAGE, MAX_VOLTAGE);
+        turnAppliedVolts = MathUtil.clamp(turnAppliedVolts, -MAX_VOLTAGE, MAX_VOLTAGE);
+        driveMotor.requestVoltage(Volts.of(driveAppliedVolts));
+        turnMotor.requestVoltage(Volts.of(turnAppliedVolts));
+    }
+
+    @Override
+    public void setDriveVelocity(double velocityMetersPerSec) {
+        driveClosedLoop = true;
+        driveSetpoint = velocityMetersPerSec;
+        this.applyVoltages();
+    }
+
+    @Override
+    public void setTurnPosition(double positionRad) {
+        turnClosedLoop = true;
+        turnSetpoint = positionRad;
+        this.applyVoltages();
+    }
+
+    @Override
+    public void setDriveOpenLoop(double output) {
+        setDriveVoltage(output * MAX_VOLTAGE);
+    }
+
+    @Override
+    public void setTurnOpenLoop(double output) {
+        setTurnVoltage(output * MAX_VOLTAGE);
+    }
+
+    @Override
+    public void setDriveVoltage(double volts) {
+        driveClosedLoop = false;
+        driveAppliedVolts = volts;
+        this.applyVoltages();
+    }
+
+    @Override
+    public void setTurnVoltage(double volts) {
+        turnClosedLoop = false;
+        turnAppliedVolts = volts;
+        this.applyVoltages();
+    }
+
+    @Override
+    public void resetTurnRelativePosition(double positionRad) {
+        turnRelativeOffsetRad = positionRad - moduleSimulation.getSteerAbsoluteFacing().getRadians();
+    }
+}
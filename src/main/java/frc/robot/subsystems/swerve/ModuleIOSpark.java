@@ -0,0 +1,248 @@
+package frc.robot.subsystems.swerve;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.CANcoder;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.ClosedLoopConfig.FeedbackSensor;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+import com.revrobotics.spark.config.SparkMaxConfig;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import frc.robot.util.CanBusLoadEstimate;
+import frc.robot.util.CanTrafficMonitor;
+import frc.robot.util.SparkSignalProfile;
+import frc.robot.util.Util;
+
+/**
+ * The competition swerve module: MK4i with a SPARK MAX + NEO for each of drive and turn, and a CANcoder on the turn axis.
+ */
+public class ModuleIOSpark implements ModuleIO {
+    /**
+     * Update frequency of the CANcoder signals used for control and odometry. The absolutely-absolute position is only used for occasional resets, so it can be slower.
+     */
+    private static final double CANCODER_FAST_SIGNAL_FREQUENCY_HZ = 100;
+    private static final double CANCODER_SLOW_SIGNAL_FREQUENCY_HZ = 20;
+    private final SparkMax driveMotor;
+    private final SparkMax turnMotor;
+
+    private final SparkClosedLoopController drivePIDController;
+    private final SparkClosedLoopController turnPIDController;
+
+    private final RelativeEncoder driveEncoder;
+    private final RelativeEncoder turnEncoder; // + power = CCW, - power = CW
+
+    private final CANcoder turnAbsoluteEncoder;
+    // Held so they can be refreshed together once per loop by DriveTrainSubsystem rather than one blocking read per getter call.
+    private final StatusSignal<Angle> turnAbsPosition;
+    private final StatusSignal<AngularVelocity> turnAbsVelocity;
+    private final StatusSignal<Angle> turnAbsolutelyAbsPosition;
+    /**
+     * Separate handles to the CANcoder's position and velocity for {@link OdometryThread}, since status signals are not safe to refresh from two threads at once.
+     */
+    private final StatusSignal<Angle> odometryTurnPosition;
+    private final StatusSignal<AngularVelocity> odometryTurnVelocity;
+
+    /**
+     * @param driveMotorCANID     CAN ID for the drive motor.
+     * @param turningMotorCANID   CAN ID for the turning motor.
+     * @param turningEncoderCANID CAN ID for the turning absolute encoder.
+     * @param name                The name of this module.
+     * @param invertDriveMotor    Whether to invert the drive motor. This should be the same across all modules.
+     * @param invertTurnMotor     Whether to invert the turn motor. This should be the same across all modules.
+     */
+    public ModuleIOSpark(int driveMotorCANID, int turningMotorCANID, int turningEncoderCANID, String name, boolean invertDriveMotor, boolean invertTurnMotor) {
+        driveMotor = new SparkMax(driveMotorCANID, MotorType.kBrushless);
+        turnMotor = new SparkMax(turningMotorCANID, MotorType.kBrushless);
+        driveEncoder = driveMotor.getEncoder();
+        turnEncoder = turnMotor.getEncoder();
+        turnAbsoluteEncoder = new CANcoder(turningEncoderCANID);
+        turnAbsPosition = turnAbsoluteEncoder.getPosition(false);
+        turnAbsVelocity = turnAbsoluteEncoder.getVelocity(false);
+        turnAbsolutelyAbsPosition = turnAbsoluteEncoder.getAbsolutePosition(false);
+        odometryTurnPosition = turnAbsPosition.clone();
+        odometryTurnVelocity = turnAbsVelocity.clone();
+
+        // driveMotor.setInverted(invertDriveMotor);
+        // turnMotor.setInverted(invertTurnMotor);
+
+        // this.driveMotor.setSmartCurrentLimit(30);
+        // this.driveMotor.setSecondaryCurrentLimit(100);
+
+        // this.turnMotor.setSmartCurrentLimit(30);
+        // this.turnMotor.setSecondaryCurrentLimit(100);
+
+        // Circumference / Gear Ratio (L2 of MK4i). This evaluates to ~1.86 inches/rotation, which is close to experimental values.
+        // We are therefore using the calculated value. (Thanks Ivan)
+        // Since everything else is in meters, convert to meters.
+        //this.driveEncoder.setPositionConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75));
+        //this.driveEncoder.setVelocityConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75) / 60);
+
+        SparkMaxConfig driveConfig = new SparkMaxConfig();
+        SparkMaxConfig turnConfig = new SparkMaxConfig();
+        driveConfig
+                .idleMode(IdleMode.kCoast)
+                .smartCurrentLimit(40)
+                .voltageCompensation(10)
+                .inverted(invertDriveMotor);
+
+        turnConfig
+                .smartCurrentLimit(40)
+                .voltageCompensation(10)
+                .inverted(invertTurnMotor);
+
+        driveConfig.encoder
+                .positionConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75))
+                .velocityConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75) / 60);
+
+        turnConfig.encoder
+                .positionConversionFactor(150d / 7d * Math.PI / 180 / 1.28)
+                .velocityConversionFactor(150d / 7d / 60d * Math.PI / 180 / 1.28);
+
+        //this.turnEncoder.setPositionConversionFactor(150d / 7d * Math.PI / 180 / 1.28); // ???
+        //this.turnEncoder.setVelocityConversionFactor(150d / 7d / 60d * Math.PI / 180 / 1.28);
+
+        this.driveEncoder.setPosition(0);
+        // this.turnEncoder.setPosition(0);
+
+        System.out.println(name + " is at abs-abs " + this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble() + ", abs " + this.turnAbsoluteEncoder.getPosition().getValueAsDouble());
+        this.turnAbsoluteEncoder.setPosition(this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble());
+        System.out.println("magnet health of " + name + " is " + this.turnAbsoluteEncoder.getMagnetHealth().getValue());
+
+        if (this.turnAbsoluteEncoder.getFault_BadMagnet().getValue()) {
+            System.out.println(name + " has a bad magnet");
+        }
+
+        BaseStatusSignal.setUpdateFrequencyForAll(CANCODER_FAST_SIGNAL_FREQUENCY_HZ, turnAbsPosition, turnAbsVelocity);
+        turnAbsolutelyAbsPosition.setUpdateFrequency(CANCODER_SLOW_SIGNAL_FREQUENCY_HZ);
+        CanBusLoadEstimate.add(name + " CANcoder", 2 * CANCODER_FAST_SIGNAL_FREQUENCY_HZ + CANCODER_SLOW_SIGNAL_FREQUENCY_HZ);
+        BaseStatusSignal.refreshAll(this.getStatusSignals());
+
+        // ORIGINAL UNITS: rotations. Converted to radians.
+        this.turnEncoder.setPosition(turnAbsolutelyAbsPosition.getValueAsDouble() * 2 * Math.PI);
+
+        // this.driveMotor.enableVoltageCompensation(10);
+        this.drivePIDController = this.driveMotor.getClosedLoopController();
+
+        driveConfig.closedLoop
+                .feedbackSensor(FeedbackSensor.kPrimaryEncoder)
+                .pidf(0.5, 0, 0.3, 0.31) // p0.3, d 0.2 ff0.25
+                .outputRange(-1, 1);
+
+        // These numbers are recently made up and subject to change.
+        driveConfig.closedLoop.maxMotion
+                .maxVelocity(3.5)
+                .maxAcceleration(3.75)
+                // TODO: tune closed loop error constant
+                .allowedClosedLoopError(0.1);
+
+        //this.driveMotor.enableVoltageCompensation(10);
+        //this.turnMotor.enableVoltageCompensation(10);
+        this.turnPIDController = this.turnMotor.getClosedLoopController();
+
+        //this.driveMotor.setSmartCurrentLimit(40);
+        //this.turnMotor.setSmartCurrentLimit(40);
+        //this.driveMotor.setIdleMode(IdleMode.kCoast);
+
+        turnConfig.closedLoop
+                .positionWrappingEnabled(true)
+                .positionWrappingMinInput(-Math.PI)
+                .positionWrappingMaxInput(Math.PI)
+                .pidf(0.575, 0, 0.3, 0) //Do not use ff because it will cause the motors to spin in the wrong direction :)
+                .outputRange(-1, 1);// used to be 0.55 0 0.3
+        // TODO: add some more config for MAXMOTION
+
+        SparkSignalProfile.SWERVE_DRIVE.apply(driveConfig, name + " drive");
+        SparkSignalProfile.SWERVE_TURN.apply(turnConfig, name + " turn");
+        Util.configureSparkMotor(driveMotor, driveConfig);
+        Util.configureSparkMotor(turnMotor, turnConfig);
+        //driveMotor.configure(driveConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+        //turnMotor.configure(turnConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+
+        //System.out.println(this.name + " inverts drive: " + this.driveMotor.getInverted() + " turn: " + this.turnMotor.getInverted());
+        // System.out.println(this.name + " abs pos " + RobotMathUtil.roundNearestHundredth(this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble()));
+    }
+
+    @Override
+    public void updateInputs(ModuleIOInputs inputs) {
+        inputs.drivePositionMeters = driveEncoder.getPosition();
+        inputs.driveVelocityMetersPerSec = driveEncoder.getVelocity();
+        inputs.driveAppliedVolts = driveMotor.getAppliedOutput() * driveMotor.getBusVoltage();
+        inputs.driveCurrentAmps = driveMotor.getOutputCurrent();
+
+        inputs.turnRelativePositionRad = turnEncoder.getPosition();
+        inputs.turnRelativeVelocityRadPerSec = turnEncoder.getVelocity();
+        // ORIGINAL UNITS: rotations and rotations per second. Converted to radians.
+        // Compensated using the velocity for the time since the frame was received, as of the last refresh.
+        inputs.turnAbsPositionRad = BaseStatusSignal.getLatencyCompensatedValueAsDouble(turnAbsPosition, turnAbsVelocity) * 2 * Math.PI;
+        inputs.turnAbsVelocityRadPerSec = turnAbsVelocity.getValueAsDouble() * 2 * Math.PI;
+        inputs.turnAbsolutelyAbsPositionRad = turnAbsolutelyAbsPosition.getValueAsDouble() * 2 * Math.PI;
+        inputs.turnAppliedVolts = turnMotor.getAppliedOutput() * turnMotor.getBusVoltage();
+    }
+
+    @Override
+    public void setDriveVelocity(double velocityMetersPerSec) {
+        CanTrafficMonitor.countCommand(driveMotor);
+        drivePIDController.setReference(velocityMetersPerSec, ControlType.kMAXMotionVelocityControl);
+    }
+
+    @Override
+    public void setTurnPosition(double positionRad) {
+        CanTrafficMonitor.countCommand(turnMotor);
+        turnPIDController.setReference(positionRad, ControlType.kPosition);
+    }
+
+    @Override
+    public void setDriveOpenLoop(double output) {
+        CanTrafficMonitor.countCommand(driveMotor);
+        driveMotor.set(output);
+    }
+
+    @Override
+    public void setTurnOpenLoop(double output) {
+        CanTrafficMonitor.countCommand(turnMotor);
+        turnMotor.set(output);
+    }
+
+    @Override
+    public void setDriveVoltage(double volts) {
+        CanTrafficMonitor.countCommand(driveMotor);
+        driveMotor.setVoltage(volts);
+    }
+
+    @Override
+    public void setTurnVoltage(double volts) {
+        CanTrafficMonitor.countCommand(turnMotor);
+        turnMotor.setVoltage(volts);
+    }
+
+    @Override
+    public void resetTurnRelativePosition(double positionRad) {
+        turnEncoder.setPosition(positionRad);
+    }
+
+    @Override
+    public BaseStatusSignal[] getStatusSignals() {
+        return new BaseStatusSignal[] {turnAbsPosition, turnAbsVelocity, turnAbsolutelyAbsPosition};
+    }
+
+    @Override
+    public BaseStatusSignal[] getOdometryStatusSignals() {
+        return new BaseStatusSignal[] {odometryTurnPosition, odometryTurnVelocity};
+    }
+
+    @Override
+    public double getOdometryDrivePosition() {
+        return driveEncoder.getPosition();
+    }
+
+    @Override
+    public double getOdometryTurnPosition() {
+        return BaseStatusSignal.getLatencyCompensatedValueAsDouble(odometryTurnPosition, odometryTurnVelocity) * 2 * Math.PI;
+    }
+}
@@ -0,0 +1,143 @@
+package frc.robot.subsystems.swerve;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.subsystems.staticsubsystems.RobotGyro;
+
+import java.util.Arrays;
+
+/**
+ * Samples the swerve modules and the gyro faster than the main loop, so the pose estimator gets more than one odometry
+ * update per 20ms loop.
+ * <p>
+ * Each sample (drive positions, CANcoder angles and gyro yaw, plus the FPGA timestamp they were read at) is written
+ * into a fixed-size ring buffer by the sampling thread and drained by the main loop with {@link #drain()}.
+ * The buffer has exactly one writer and one reader, so it needs no locks: the writer only moves {@link #writeCount} and
+ * the reader only moves {@link #readCount}. If the main loop stalls long enough for the buffer to fill, new samples are
+ * dropped and counted rather than overwriting ones the reader might be in the middle of.
+ * <p>
+ * Note that samples are only as fresh as the CAN status frames they come from; sampling faster than the devices report
+ * just repeats values. Only runs on the real robot. {@link DriveTrainSubsystem} drains it once per loop into the module and gyro inputs
+ * and updates the pose estimator from those inputs only, so replaying a log feeds the estimator the same samples; in simulation nothing
+ * is sampled and odometry is updated once per loop instead.
+ */
+public class OdometryThread {
+	public static final double FREQUENCY_HZ = 250;
+	/** 32 samples at 250Hz is 128ms, several loops' worth of slack. Must be a power of 2. */
+	private static final int CAPACITY = 32;
+	private static final int MODULE_COUNT = 4;
+
+	private final SwerveModule[] modules;
+	private final BaseStatusSignal[] signals;
+	private final Notifier notifier;
+
+	private final double[] timestamps = new double[CAPACITY];
+	private final double[] yawDegrees = new double[CAPACITY];
+	private final double[][] drivePositions = new double[CAPACITY][MODULE_COUNT];
+	private final double[][] turnPositions = new double[CAPACITY][MODULE_COUNT];
+
+	private volatile long writeCount = 0;
+	private volatile long readCount = 0;
+	private volatile long droppedCount = 0;
+
+	/**
+	 * @param modules The modules to sample, in the same order as the kinematics (FL, FR, BL, BR)
+	 */
+	public OdometryThread(SwerveModule[] modules) {
+		if (modules.length != MODULE_COUNT) {
+			throw new IllegalArgumentException("OdometryThread expects " + MODULE_COUNT + " modules, got " + modules.length);
+		}
+		this.modules = modules;
+		this.signals = Arrays.stream(modules).flatMap(module -> Arrays.stream(module.getOdometryStatusSignals())).toArray(BaseStatusSignal[]::new);
+		notifier = new Notifier(this::sample);
+		notifier.setName("Odometry Thread");
+	}
+
+	/**
+	 * Start sampling at {@link #FREQUENCY_HZ}.
+	 */
+	public void start() {
+		notifier.startPeriodic(1.0 / FREQUENCY_HZ);
+	}
+
+	/**
+	 * The samples taken during one loop, oldest first. Logged as the modules' and gyro's inputs so replay sees exactly what the pose estimator did.
+	 *
+	 * @param timestamps     The FPGA timestamp each sample was taken at, in seconds
+	 * @param yawDegrees     The gyro yaw of each sample, with {@link RobotGyro}'s heading offset already applied
+	 * @param drivePositions The drive positions in meters, indexed by module then sample
+	 * @param turnPositions  The absolute turn positions in radians, indexed by module then sample
+	 */
+	public record Samples(double[] timestamps, double[] yawDegrees, double[][] drivePositions, double[][] turnPositions) {
+		public static final Samples EMPTY = new Samples(new double[0], new double[0], new double[MODULE_COUNT][0], new double[MODULE_COUNT][0]);
+
+		public int count() {
+			return timestamps.length;
+		}
+	}
+
+	private void sample() {
+		long write = writeCount;
+		if (write - readCount >= CAPACITY) {
+			droppedCount++;
+			return;
+		}
+
+		int slot = (int) (write & (CAPACITY - 1));
+		// one refresh for all four CANcoders, so their values line up in time
+		BaseStatusSignal.refreshAll(signals);
+		for (int i = 0; i < MODULE_COUNT; i++) {
+			drivePositions[slot][i] = modules[i].getOdometryDrivePosition();
+			turnPositions[slot][i] = modules[i].getOdometryTurnPosition();
+		}
+		yawDegrees[slot] = RobotGyro.getOdometryYawDegrees();
+		timestamps[slot] = Timer.getFPGATimestamp();
+
+		// publishing the new count after the slot is filled is what makes the slot visible to the reader
+		writeCount = write + 1;
+	}
+
+	/**
+	 * Take every sample taken since the last drain, oldest first. Must only be called from one thread, once per loop.
+	 *
+	 * @return The samples, or {@link Samples#EMPTY} if there are none (e.g. when the thread isn't running)
+	 */
+	public Samples drain() {
+		long start = readCount;
+		long write = writeCount;
+		int count = (int) (write - start);
+		if (count == 0) {
+			return Samples.EMPTY;
+		}
+
+		Samples samples = new Samples(new double[count], new double[count], new double[MODULE_COUNT][count], new double[MODULE_COUNT][count]);
+		for (int n = 0; n < count; n++) {
+			int slot = (int) ((start + n) & (CAPACITY - 1));
+			samples.timestamps[n] = timestamps[slot];
+			samples.yawDegrees[n] = yawDegrees[slot];
+			for (int i = 0; i < MODULE_COUNT; i++) {
+				samples.drivePositions[i][n] = drivePositions[slot][i];
+				samples.turnPositions[i][n] = turnPositions[slot][i];
+			}
+		}
+		// release the slots only after they have been copied out
+		readCount = write;
+		return samples;
+	}
+
+	/**
+	 * Throw away every sample that has not been drained yet, e.g. because the pose was just reset and older samples no
+	 * longer line up with it. Must be called from the same thread as {@link #drain()}.
+	 */
+	public void clear() {
+		readCount = writeCount;
+	}
+
+	/**
+	 * @return The total number of samples dropped because the buffer was full.
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+}
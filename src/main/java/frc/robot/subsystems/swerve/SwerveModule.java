@@ -4,25 +4,18 @@
 
 package frc.robot.subsystems.swerve;
 
-import com.ctre.phoenix6.hardware.CANcoder;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkClosedLoopController;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.spark.config.ClosedLoopConfig.FeedbackSensor;
-import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
-import com.revrobotics.spark.config.SparkMaxConfig;
+import com.ctre.phoenix6.BaseStatusSignal;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.GenericPublisher;
 import edu.wpi.first.networktables.NetworkTableType;
 import frc.robot.Constants.NetworkTablesConstants;
 import frc.robot.Flags;
+import frc.robot.subsystems.staticsubsystems.RobotGyro;
+import frc.robot.subsystems.swerve.ModuleIO.ModuleIOInputs;
 import frc.robot.util.NetworkTablesUtil;
-import frc.robot.util.Util;
+import org.littletonrobotics.junction.Logger;
 
 /**
  * There are three existing readouts for the module's rotational position.
@@ -49,132 +42,58 @@ import frc.robot.util.Util;
  * and the CANcoder's discontinuous encoder will be referred to as the "absolutely-absolute encoder".
  * <p>
  * The drive motors do not follow this naming scheme as they only have a relative encoder.
+ * <p>
+ * The hardware itself is behind a {@link ModuleIO}; this class only reads it through {@link ModuleIOInputs}, which are updated once per loop by
+ * {@link #updateInputs(double[], double[], double[])}.
  */
 public class SwerveModule {
     private static final double SWERVE_ROTATION_OPTIMIZATION_THRESH_DEG = 90;
-    private final SparkMax driveMotor;
-    private final SparkMax turnMotor;
-
-    private final SparkClosedLoopController drivePIDController;
-    private final SparkClosedLoopController turnPIDController;
-
-    private final RelativeEncoder driveEncoder;
-    private final RelativeEncoder turnEncoder; // + power = CCW, - power = CW
 
-    private final CANcoder turnAbsoluteEncoder;
+    private final ModuleIO io;
+    private final ModuleIOInputs inputs = new ModuleIOInputs();
 
     private final String name;
 
     private final GenericPublisher rotationPublisher;
 
+    // Buffers returned by the *Buffer accessors, filled in place so the drive/odometry path doesn't make new module states every loop.
+    private final SwerveModuleState absoluteStateBuffer = new SwerveModuleState();
+    private final SwerveModuleState relativeStateBuffer = new SwerveModuleState();
+    private final SwerveModulePosition absolutePositionBuffer = new SwerveModulePosition();
+    // Rotation2d is immutable, so the best we can do is reuse the last one while the angle hasn't changed (which is most
+    // reads, since the encoders only report every few ms).
+    private double cachedAbsAngleRadians = Double.NaN;
+    private Rotation2d cachedAbsAngle = Rotation2d.kZero;
+    private double cachedRelAngleRadians = Double.NaN;
+    private Rotation2d cachedRelAngle = Rotation2d.kZero;
+
     /**
-     * @param driveMotorCANID     CAN ID for the drive motor.
-     * @param turningMotorCANID   CAN ID for the turning motor.
-     * @param turningEncoderCANID CAN ID for the turning absolute encoder.
-     * @param name                The name of this module.
-     * @param invertDriveMotor    Whether to invert the drive motor. This should be the same across all modules.
-     * @param invertTurnMotor     Whether to invert the turn motor. This should be the same across all modules.
+     * @param io   The module's hardware (or simulation of it).
+     * @param name The name of this module.
      */
-    public SwerveModule(int driveMotorCANID, int turningMotorCANID, int turningEncoderCANID, String name, boolean invertDriveMotor, boolean invertTurnMotor) {
-        driveMotor = new SparkMax(driveMotorCANID, MotorType.kBrushless);
-        turnMotor = new SparkMax(turningMotorCANID, MotorType.kBrushless);
+    public SwerveModule(ModuleIO io, String name) {
+        this.io = io;
         this.name = name;
-        driveEncoder = driveMotor.getEncoder();
-        turnEncoder = turnMotor.getEncoder();
-        turnAbsoluteEncoder = new CANcoder(turningEncoderCANID);
 
         rotationPublisher = NetworkTablesUtil.getPublisher(NetworkTablesConstants.MAIN_TABLE_NAME, name + "_rot", NetworkTableType.kDouble);
 
-        // driveMotor.setInverted(invertDriveMotor);
-        // turnMotor.setInverted(invertTurnMotor);
-
-        // this.driveMotor.setSmartCurrentLimit(30);
-        // this.driveMotor.setSecondaryCurrentLimit(100);
-
-        // this.turnMotor.setSmartCurrentLimit(30);
-        // this.turnMotor.setSecondaryCurrentLimit(100);
-
-        // Circumference / Gear Ratio (L2 of MK4i). This evaluates to ~1.86 inches/rotation, which is close to experimental values.
-        // We are therefore using the calculated value. (Thanks Ivan)
-        // Since everything else is in meters, convert to meters.
-        //this.driveEncoder.setPositionConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75));
-        //this.driveEncoder.setVelocityConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75) / 60);
-
-        SparkMaxConfig driveConfig = new SparkMaxConfig();
-        SparkMaxConfig turnConfig = new SparkMaxConfig();
-        driveConfig
-                .idleMode(IdleMode.kCoast)
-                .smartCurrentLimit(40)
-                .voltageCompensation(10)
-                .inverted(invertDriveMotor);
-
-        turnConfig
-                .smartCurrentLimit(40)
-                .voltageCompensation(10)
-                .inverted(invertTurnMotor);
-
-        driveConfig.encoder
-                .positionConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75))
-                .velocityConversionFactor(Units.inchesToMeters(4 * Math.PI / 6.75) / 60);
-
-        turnConfig.encoder
-                .positionConversionFactor(150d / 7d * Math.PI / 180 / 1.28)
-                .velocityConversionFactor(150d / 7d / 60d * Math.PI / 180 / 1.28);
-
-        //this.turnEncoder.setPositionConversionFactor(150d / 7d * Math.PI / 180 / 1.28); // ???
-        //this.turnEncoder.setVelocityConversionFactor(150d / 7d / 60d * Math.PI / 180 / 1.28);
-
-        this.driveEncoder.setPosition(0);
-        // this.turnEncoder.setPosition(0);
-
-        System.out.println(name + " is at abs-abs " + this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble() + ", abs " + this.turnAbsoluteEncoder.getPosition().getValueAsDouble());
-        this.turnAbsoluteEncoder.setPosition(this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble());
-        System.out.println("magnet health of " + name + " is " + this.turnAbsoluteEncoder.getMagnetHealth().getValue());
-
-        if (this.turnAbsoluteEncoder.getFault_BadMagnet().getValue()) {
-            System.out.println(name + " has a bad magnet");
-        }
-
-        this.turnEncoder.setPosition(this.getTurnAbsolutelyAbsolutePosition());
-
-        // this.driveMotor.enableVoltageCompensation(10);
-        this.drivePIDController = this.driveMotor.getClosedLoopController();
-
-        driveConfig.closedLoop
-                .feedbackSensor(FeedbackSensor.kPrimaryEncoder)
-                .pidf(0.5, 0, 0.3, 0.31) // p0.3, d 0.2 ff0.25
-                .outputRange(-1, 1);
-
-        // These numbers are recently made up and subject to change.
-        driveConfig.closedLoop.maxMotion
-                .maxVelocity(3.5)
-                .maxAcceleration(3.75)
-                // TODO: tune closed loop error constant
-                .allowedClosedLoopError(0.1);
-
-        //this.driveMotor.enableVoltageCompensation(10);
-        //this.turnMotor.enableVoltageCompensation(10);
-        this.turnPIDController = this.turnMotor.getClosedLoopController();
-
-        //this.driveMotor.setSmartCurrentLimit(40);
-        //this.turnMotor.setSmartCurrentLimit(40);
-        //this.driveMotor.setIdleMode(IdleMode.kCoast);
-
-        turnConfig.closedLoop
-                .positionWrappingEnabled(true)
-                .positionWrappingMinInput(-Math.PI)
-                .positionWrappingMaxInput(Math.PI)
-                .pidf(0.575, 0, 0.3, 0) //Do not use ff because it will cause the motors to spin in the wrong direction :)
-                .outputRange(-1, 1);// used to be 0.55 0 0.3
-        // TODO: add some more config for MAXMOTION
-        
-        Util.configureSparkMotor(driveMotor, driveConfig);
-        Util.configureSparkMotor(turnMotor, turnConfig);
-        //driveMotor.configure(driveConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-        //turnMotor.configure(turnConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+        // so the module can be read (e.g. by the pose estimator's initial positions) before the first loop
+        io.updateInputs(inputs);
+    }
 
-        //System.out.println(this.name + " inverts drive: " + this.driveMotor.getInverted() + " turn: " + this.turnMotor.getInverted());
-        // System.out.println(this.name + " abs pos " + RobotMathUtil.roundNearestHundredth(this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble()));
+    /**
+     * Read the module's sensors for this loop. The signals from {@link #getStatusSignals()} must have been refreshed first.
+     *
+     * @param odometryTimestamps     The timestamps of this loop's {@link OdometryThread} samples
+     * @param odometryDrivePositions This module's drive position in each of those samples, in meters
+     * @param odometryTurnPositions  This module's absolute turn position in each of those samples, in radians
+     */
+    public void updateInputs(double[] odometryTimestamps, double[] odometryDrivePositions, double[] odometryTurnPositions) {
+        io.updateInputs(inputs);
+        inputs.odometryTimestamps = odometryTimestamps;
+        inputs.odometryDrivePositionsMeters = odometryDrivePositions;
+        inputs.odometryTurnPositionsRad = odometryTurnPositions;
+        Logger.processInputs("Drive/" + name, inputs);
     }
 
     /**
@@ -207,6 +126,14 @@ public class SwerveModule {
         var delta = desiredState.angle.minus(currentAngle);
         // System.out.println(" -------------------------------------------------------- ");
         // System.out.println("delta: " + delta);
+        if (Flags.DriveTrain.REUSE_MODULE_STATE_BUFFERS) {
+            // the states we're given are always freshly made by the kinematics, so it's safe to change them in place
+            if (Math.abs(delta.getDegrees()) > SWERVE_ROTATION_OPTIMIZATION_THRESH_DEG) {
+                desiredState.speedMetersPerSecond = -desiredState.speedMetersPerSecond;
+                desiredState.angle = desiredState.angle.rotateBy(Rotation2d.k180deg);
+            }
+            return desiredState;
+        }
         if (Math.abs(delta.getDegrees()) > SWERVE_ROTATION_OPTIMIZATION_THRESH_DEG) {
             // System.out.println("optimizing!");
             // System.out.println(" -------------------------------------------------------- ");
@@ -228,18 +155,24 @@ public class SwerveModule {
         /* To reduce the "skew" that occurs when changing direction */
         /* If error is close to 0 rotations, we're already there, so apply full power */
         /* If the error is close to 0.25 rotations, then we're 90 degrees, so movement doesn't help us at all */
-        cosineScalar = desiredState.angle.minus(this.getAbsoluteModuleState().angle).getCos();
+        // cos(desired - current) expanded, so no intermediate Rotation2d/SwerveModuleState is needed
+        double currentAngle = this.getTurnAbsEncoderPosition();
+        cosineScalar = desiredState.angle.getCos() * Math.cos(currentAngle) + desiredState.angle.getSin() * Math.sin(currentAngle);
         /* Make sure we don't invert our drive, even though we shouldn't ever target over 90 degrees anyway */
         // Are we optimizing target angles??
         if (cosineScalar < 0.0) {
             cosineScalar = 1;
         }
 
+        if (Flags.DriveTrain.REUSE_MODULE_STATE_BUFFERS) {
+            desiredState.speedMetersPerSecond *= cosineScalar;
+            return desiredState;
+        }
         return new SwerveModuleState(desiredState.speedMetersPerSecond * cosineScalar, desiredState.angle);
     }
 
     public double getDriveAmperage() {
-        return this.driveMotor.getOutputCurrent();
+        return inputs.driveCurrentAmps;
     }
 
     /**
@@ -249,7 +182,7 @@ public class SwerveModule {
      */
     public void resetEncodersToAbsoluteValue() {
         // this.turnAbsoluteEncoder.setPosition(this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble());
-        this.turnEncoder.setPosition(this.getTurnAbsEncoderPosition());
+        io.resetTurnRelativePosition(this.getTurnAbsEncoderPosition());
     }
 
     /**
@@ -263,7 +196,16 @@ public class SwerveModule {
      * @return The number of meters the drive motor has traveled from the starting position.
      */
     public double getDrivePosition() {
-        return this.driveEncoder.getPosition();
+        return inputs.drivePositionMeters;
+    }
+
+    /**
+     * Same as {@link #getDrivePosition()}, but read directly from the hardware so it is safe to call from {@link OdometryThread}.
+     *
+     * @return The number of meters the drive motor has traveled from the starting position.
+     */
+    public double getOdometryDrivePosition() {
+        return io.getOdometryDrivePosition();
     }
 
     /**
@@ -271,8 +213,8 @@ public class SwerveModule {
      * @see SwerveModule
      */
     public double getTurnAbsEncoderPosition() {
-        // ORIGINAL UNITS: rotations. Converted to radians.
-        return this.turnAbsoluteEncoder.getPosition().getValueAsDouble() * 360 * Math.PI / 180;
+        // Compensated using the velocity for the time since the frame was received, as of the last refresh.
+        return inputs.turnAbsPositionRad;
     }
 
     /**
@@ -280,8 +222,51 @@ public class SwerveModule {
      * @see SwerveModule
      */
     public double getTurnAbsEncoderVelocity() {
-        // ORIGINAL UNITS: rotations per second. Converted to radians per second.
-        return this.turnAbsoluteEncoder.getVelocity().getValueAsDouble() * 360 * Math.PI / 180;
+        return inputs.turnAbsVelocityRadPerSec;
+    }
+
+    /**
+     * @return The drive positions of this loop's {@link OdometryThread} samples, in meters. Matches {@link RobotGyro#getOdometryTimestamps()}.
+     */
+    public double[] getOdometryDrivePositions() {
+        return inputs.odometryDrivePositionsMeters;
+    }
+
+    /**
+     * @return The absolute turn positions of this loop's {@link OdometryThread} samples, in radians. Matches {@link RobotGyro#getOdometryTimestamps()}.
+     */
+    public double[] getOdometryTurnPositions() {
+        return inputs.odometryTurnPositionsRad;
+    }
+
+    /**
+     * Same as {@link #getTurnAbsEncoderPosition()}, but safe to call from {@link OdometryThread} while the main thread reads the module.
+     * The signals from {@link #getOdometryStatusSignals()} must have been refreshed first.
+     *
+     * @return The absolute encoder's position in radians
+     */
+    public double getOdometryTurnPosition() {
+        return io.getOdometryTurnPosition();
+    }
+
+    /**
+     * The CANcoder signals read by {@link #updateInputs(double[], double[], double[])}. These are NOT refreshed by the module itself; they must all be refreshed with
+     * {@link BaseStatusSignal#refreshAll(BaseStatusSignal...)} once per loop, which {@link DriveTrainSubsystem} does for every module at once.
+     * Empty when the module isn't backed by CTRE hardware.
+     *
+     * @return The status signals to refresh each loop.
+     */
+    public BaseStatusSignal[] getStatusSignals() {
+        return io.getStatusSignals();
+    }
+
+    /**
+     * The {@link OdometryThread}'s own handles to the CANcoder signals, to be refreshed together by that thread before calling {@link #getOdometryTurnPosition()}.
+     *
+     * @return The status signals to refresh before each odometry sample.
+     */
+    public BaseStatusSignal[] getOdometryStatusSignals() {
+        return io.getOdometryStatusSignals();
     }
 
     /**
@@ -291,15 +276,14 @@ public class SwerveModule {
      * @see SwerveModule
      */
     public double getTurnAbsolutelyAbsolutePosition() {
-        // ORIGINAL UNITS: rotations. Converted to radians.
-        return this.turnAbsoluteEncoder.getAbsolutePosition().getValueAsDouble() * 2 * Math.PI;
+        return inputs.turnAbsolutelyAbsPositionRad;
     }
 
     /**
      * @return The velocity of the drive encoder, in m/sec.
      */
     public double getDriveVelocity() {
-        return this.driveEncoder.getVelocity();
+        return inputs.driveVelocityMetersPerSec;
     }
 
     /**
@@ -307,14 +291,14 @@ public class SwerveModule {
      * @see SwerveModule
      */
     public double getTurnRelativePosition() {
-        return this.turnEncoder.getPosition();
+        return inputs.turnRelativePositionRad;
     }
 
     /**
      * @return The relative encoder's velocity in radians/sec.
      */
     public double getTurnRelativeVelocity() {
-        return this.turnEncoder.getVelocity();
+        return inputs.turnRelativeVelocityRadPerSec;
     }
 
     /**
@@ -323,7 +307,60 @@ public class SwerveModule {
      * @return The current state of the module using the absolute encoder's position.
      */
     public SwerveModuleState getAbsoluteModuleState() {
-        return new SwerveModuleState(driveEncoder.getVelocity(), new Rotation2d(this.getTurnAbsEncoderPosition()));
+        return new SwerveModuleState(inputs.driveVelocityMetersPerSec, new Rotation2d(this.getTurnAbsEncoderPosition()));
+    }
+
+    /**
+     * Same as {@link #getAbsoluteModuleState()}, but fills in and returns a state owned by this module instead of allocating a new one.
+     * The returned state is overwritten by the next call, so copy it if it needs to be kept.
+     *
+     * @return The current state of the module using the absolute encoder's position.
+     */
+    public SwerveModuleState getAbsoluteModuleStateBuffer() {
+        absoluteStateBuffer.speedMetersPerSecond = inputs.driveVelocityMetersPerSec;
+        absoluteStateBuffer.angle = this.getTurnAbsEncoderRotation();
+        return absoluteStateBuffer;
+    }
+
+    /**
+     * Same as {@link #getRelativeModuleState()}, but fills in and returns a state owned by this module instead of allocating a new one.
+     * The returned state is overwritten by the next call, so copy it if it needs to be kept.
+     *
+     * @return The current state of the module using the relative encoder's position.
+     */
+    public SwerveModuleState getRelativeModuleStateBuffer() {
+        double radians = inputs.turnRelativePositionRad;
+        if (radians != cachedRelAngleRadians) {
+            cachedRelAngleRadians = radians;
+            cachedRelAngle = new Rotation2d(radians);
+        }
+        relativeStateBuffer.speedMetersPerSecond = inputs.driveVelocityMetersPerSec;
+        relativeStateBuffer.angle = cachedRelAngle;
+        return relativeStateBuffer;
+    }
+
+    /**
+     * Same as {@link #getAbsoluteModulePosition()}, but fills in and returns a position owned by this module instead of allocating a new one.
+     * The returned position is overwritten by the next call, so copy it if it needs to be kept.
+     *
+     * @return The current position of the module using the absolute encoder's position.
+     */
+    public SwerveModulePosition getAbsoluteModulePositionBuffer() {
+        absolutePositionBuffer.distanceMeters = inputs.drivePositionMeters;
+        absolutePositionBuffer.angle = this.getTurnAbsEncoderRotation();
+        return absolutePositionBuffer;
+    }
+
+    /**
+     * @return The absolute encoder's position as a {@link Rotation2d}, reusing the previous instance if the position hasn't changed.
+     */
+    private Rotation2d getTurnAbsEncoderRotation() {
+        double radians = this.getTurnAbsEncoderPosition();
+        if (radians != cachedAbsAngleRadians) {
+            cachedAbsAngleRadians = radians;
+            cachedAbsAngle = new Rotation2d(radians);
+        }
+        return cachedAbsAngle;
     }
 
     /**
@@ -332,7 +369,7 @@ public class SwerveModule {
      * @return The current state of the module using the absolutely-absolute encoder's position.
      */
     public SwerveModuleState getAbsoluteAbsoluteModuleState() {
-        return new SwerveModuleState(driveEncoder.getVelocity(), new Rotation2d(this.getTurnAbsolutelyAbsolutePosition()));
+        return new SwerveModuleState(inputs.driveVelocityMetersPerSec, new Rotation2d(this.getTurnAbsolutelyAbsolutePosition()));
     }
 
     /**
@@ -341,7 +378,7 @@ public class SwerveModule {
      * @return The current position of the module using the absolute encoder's position.
      */
     public SwerveModulePosition getAbsoluteModulePosition() {
-        return new SwerveModulePosition(driveEncoder.getPosition(), new Rotation2d(this.getTurnAbsEncoderPosition()));
+        return new SwerveModulePosition(inputs.drivePositionMeters, new Rotation2d(this.getTurnAbsEncoderPosition()));
     }
 
     /**
@@ -350,7 +387,7 @@ public class SwerveModule {
      * @return The current state of the module using the relative encoder's position.
      */
     public SwerveModuleState getRelativeModuleState() {
-        return new SwerveModuleState(driveEncoder.getVelocity(), new Rotation2d(this.turnEncoder.getPosition()));
+        return new SwerveModuleState(inputs.driveVelocityMetersPerSec, new Rotation2d(inputs.turnRelativePositionRad));
     }
 
     /**
@@ -359,7 +396,7 @@ public class SwerveModule {
      * @return The current position of the module using the relative encoder's position.
      */
     public SwerveModulePosition getRelativeModulePosition() {
-        return new SwerveModulePosition(driveEncoder.getPosition(), new Rotation2d(this.turnEncoder.getPosition()));
+        return new SwerveModulePosition(inputs.drivePositionMeters, new Rotation2d(inputs.turnRelativePositionRad));
     }
 
     /**
@@ -370,8 +407,8 @@ public class SwerveModule {
      */
     public void setVoltages(double driveVoltage, double turnVoltage) {
         if(Flags.DriveTrain.ENABLED) {
-            driveMotor.setVoltage(driveVoltage);
-            turnMotor.setVoltage(turnVoltage);
+            io.setDriveVoltage(driveVoltage);
+            io.setTurnVoltage(turnVoltage);
         }
     }
 
@@ -409,7 +446,7 @@ public class SwerveModule {
     public void setDesiredState(SwerveModuleState desiredState) {
         SwerveModuleState state;
         if (Flags.DriveTrain.SWERVE_MODULE_OPTIMIZATION) {
-            state = optimize(desiredState, new Rotation2d(this.getTurnAbsEncoderPosition()));
+            state = optimize(desiredState, this.getTurnAbsEncoderRotation());
         } else {
             state = desiredState;
         }
@@ -427,7 +464,7 @@ public class SwerveModule {
     public void setDesiredState(SwerveModuleState desiredState, int debugIdx) {
         SwerveModuleState state;
         if (Flags.DriveTrain.SWERVE_MODULE_OPTIMIZATION) {
-            state = optimize(desiredState, new Rotation2d(this.getTurnAbsEncoderPosition()));
+            state = optimize(desiredState, this.getTurnAbsEncoderRotation());
         } else {
             state = desiredState;
         }
@@ -477,18 +514,18 @@ public class SwerveModule {
     private void setDriveDesiredState(SwerveModuleState optimizedDesiredState) {
         // Calculate the drive output from the drive PID controller.
         if (Flags.DriveTrain.ENABLED && Flags.DriveTrain.ENABLE_DRIVE_MOTORS && Flags.DriveTrain.DRIVE_PID_CONTROL) {
-            drivePIDController.setReference(optimizedDesiredState.speedMetersPerSecond, ControlType.kMAXMotionVelocityControl);
+            io.setDriveVelocity(optimizedDesiredState.speedMetersPerSecond);
         }
 
         // TODO: add flag for the print statements and stuff here turning on
-        double vel = driveEncoder.getVelocity();
+        double vel = inputs.driveVelocityMetersPerSec;
         double tar = optimizedDesiredState.speedMetersPerSecond;
         double ratio = 0;
         if (Math.abs(tar) > 0.01) {
             ratio = vel / tar;
         }
-        // System.out.println(this.name + " velocity: " + nearestHundredth(driveEncoder.getVelocity()) + " target speed: " + nearestHundredth(optimizedDesiredState.speedMetersPerSecond) + ", ratio: " + nearestHundredth(ratio));
-        //System.out.println(this.name + ", position: " + this.driveEncoder.getPosition());
+        // System.out.println(this.name + " velocity: " + nearestHundredth(inputs.driveVelocityMetersPerSec) + " target speed: " + nearestHundredth(optimizedDesiredState.speedMetersPerSecond) + ", ratio: " + nearestHundredth(ratio));
+        //System.out.println(this.name + ", position: " + this.inputs.drivePositionMeters);
     }
 
     /**
@@ -498,9 +535,9 @@ public class SwerveModule {
      * @see SwerveModule#setDesiredState(SwerveModuleState)
      */
     private void setRotationDesiredState(SwerveModuleState optimizedDesiredState) {
-        // System.out.println("turn encoder at: " + RobotMathUtil.roundNearestHundredth(this.turnEncoder.getPosition()) + ", abs val: " + RobotMathUtil.roundNearestHundredth(this.getTurningAbsEncoderPositionConverted()));
+        // System.out.println("turn encoder at: " + RobotMathUtil.roundNearestHundredth(inputs.turnRelativePositionRad) + ", abs val: " + RobotMathUtil.roundNearestHundredth(this.getTurningAbsEncoderPositionConverted()));
         if (Flags.DriveTrain.ENABLED && Flags.DriveTrain.ENABLE_TURN_MOTORS && Flags.DriveTrain.TURN_PID_CONTROL) {
-            turnPIDController.setReference(optimizedDesiredState.angle.getRadians(), ControlType.kPosition);
+            io.setTurnPosition(optimizedDesiredState.angle.getRadians());
         }
 
         rotationPublisher.setDouble(this.getTurnRelativePosition());
@@ -514,7 +551,7 @@ public class SwerveModule {
      */
     public void directDrive(double speed) {
         if (Flags.DriveTrain.ENABLED && Flags.DriveTrain.ENABLE_DRIVE_MOTORS) {
-            this.driveMotor.set(speed);
+            io.setDriveOpenLoop(speed);
         }
     }
 
@@ -525,7 +562,7 @@ public class SwerveModule {
      */
     public void directTurn(double speed) {
         if (Flags.DriveTrain.ENABLED && Flags.DriveTrain.ENABLE_TURN_MOTORS) {
-            this.turnMotor.set(speed);
+            io.setTurnOpenLoop(speed);
         }
     }
 }
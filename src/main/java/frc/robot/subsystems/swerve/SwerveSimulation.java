@@ -0,0 +1,107 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.StructPublisher;
+import frc.robot.Constants.RobotConstants;
+import frc.robot.util.NetworkTablesUtil;
+import org.ironmaple.simulation.SimulatedArena;
+import org.ironmaple.simulation.drivesims.COTS;
+import org.ironmaple.simulation.drivesims.SwerveDriveSimulation;
+import org.ironmaple.simulation.drivesims.configs.DriveTrainSimulationConfig;
+import org.ironmaple.simulation.drivesims.configs.SwerveModuleSimulationConfig;
+import org.littletonrobotics.junction.Logger;
+
+import static edu.wpi.first.units.Units.KilogramSquareMeters;
+import static edu.wpi.first.units.Units.Kilograms;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Volts;
+
+/**
+ * Physics simulation of the drivetrain on the 2025 field, using maple-sim. The robot is a rigid body pushed around by the friction of each
+ * simulated module's wheel, and collides with the field walls, the reef and the other field elements of {@link SimulatedArena}.
+ * <p>
+ * {@link ModuleIOSim} and {@link frc.robot.subsystems.staticsubsystems.GyroIOSim} read from and drive the simulation created here; the arena
+ * is stepped once per loop by {@link #periodic()}. Only used when {@link frc.robot.Constants.SimulationConstants#CURRENT_MODE} is SIM.
+ */
+public final class SwerveSimulation {
+    // MK4i L2 with NEOs, same as the real modules
+    static final DCMotor DRIVE_GEARBOX = DCMotor.getNEO(1);
+    static final DCMotor TURN_GEARBOX = DCMotor.getNEO(1);
+    static final double DRIVE_GEARING = 6.75;
+    static final double TURN_GEARING = 150d / 7d;
+    static final double WHEEL_RADIUS_METERS = Units.inchesToMeters(2);
+    // from the PathPlanner robot config
+    private static final double ROBOT_MASS_KG = 50;
+    private static final double BUMPER_SIZE_METERS = 0.915;
+    private static final double WHEEL_COF = 1.542;
+    private static final double DRIVE_FRICTION_VOLTS = 0.1;
+    private static final double TURN_FRICTION_VOLTS = 0.1;
+    private static final double TURN_MOI = 0.02;
+
+    // facing the driver station, matching the 180 degree heading the drivetrain assumes at startup
+    private static final Pose2d INITIAL_POSE = new Pose2d(3, 3, Rotation2d.k180deg);
+
+    private static final StructPublisher<Pose2d> simulatedPosePublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getStructTopic("simulatedPose", Pose2d.struct).publish();
+
+    private static SwerveDriveSimulation driveSimulation;
+
+    private SwerveSimulation() {
+    }
+
+    /**
+     * @return The simulated drivetrain, creating it and adding it to the arena on first use.
+     */
+    public static synchronized SwerveDriveSimulation getDriveSimulation() {
+        if (driveSimulation == null) {
+            DriveTrainSimulationConfig config = DriveTrainSimulationConfig.Default()
+                    .withRobotMass(Kilograms.of(ROBOT_MASS_KG))
+                    .withBumperSize(Meters.of(BUMPER_SIZE_METERS), Meters.of(BUMPER_SIZE_METERS))
+                    .withTrackLengthTrackWidth(Meters.of(2 * RobotConstants.LEG_LENGTHS_M), Meters.of(2 * RobotConstants.LEG_LENGTHS_M))
+                    .withGyro(COTS.ofGenericGyro())
+                    .withSwerveModule(new SwerveModuleSimulationConfig(
+                            DRIVE_GEARBOX,
+                            TURN_GEARBOX,
+                            DRIVE_GEARING,
+                            TURN_GEARING,
+                            Volts.of(DRIVE_FRICTION_VOLTS),
+                            Volts.of(TURN_FRICTION_VOLTS),
+                            Meters.of(WHEEL_RADIUS_METERS),
+                            KilogramSquareMeters.of(TURN_MOI),
+                            WHEEL_COF
+                    ));
+            driveSimulation = new SwerveDriveSimulation(config, INITIAL_POSE);
+            SimulatedArena.getInstance().addDriveTrainSimulation(driveSimulation);
+        }
+        return driveSimulation;
+    }
+
+    /**
+     * Step the physics by one loop. Called after everything else in the loop, so the voltages the modules were just given are applied.
+     */
+    public static void periodic() {
+        SimulatedArena.getInstance().simulationPeriodic();
+
+        Pose2d pose = getDriveSimulation().getSimulatedDriveTrainPose();
+        simulatedPosePublisher.set(pose);
+        Logger.recordOutput("FieldSimulation/RobotPose", pose);
+    }
+
+    /**
+     * Teleport the simulated robot, e.g. when the pose is reset at the start of an auto.
+     *
+     * @param pose The robot's new actual pose on the field
+     */
+    public static void resetPose(Pose2d pose) {
+        getDriveSimulation().setSimulationWorldPose(pose);
+    }
+
+    /**
+     * @return Where the simulated robot actually is, to compare against the pose estimate.
+     */
+    public static Pose2d getPose() {
+        return getDriveSimulation().getSimulatedDriveTrainPose();
+    }
+}
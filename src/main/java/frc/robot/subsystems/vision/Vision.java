@@ -2,6 +2,7 @@ package frc.robot.subsystems.vision;
 
 import static frc.robot.subsystems.vision.VisionConstants.*;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.Pose2d;
@@ -11,12 +12,17 @@ import edu.wpi.first.math.numbers.N1;
 import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.subsystems.staticsubsystems.QuestNav;
+import frc.robot.subsystems.vision.VisionIO.PoseObservation;
 import frc.robot.subsystems.vision.VisionIO.PoseObservationType;
 import frc.robot.subsystems.vision.VisionIO.VisionIOInputs;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 import org.littletonrobotics.junction.Logger;
 
 public class Vision extends SubsystemBase {
@@ -24,11 +30,29 @@ public class Vision extends SubsystemBase {
   private final VisionIO[] io;
   private final VisionIOInputs[] inputs;
   private final Alert[] disconnectedAlerts;
+  private final PoseHistoryLookup poseHistory;
 
-  public Vision(VisionConsumer consumer, VisionIO... io) {
+  // Per camera gating state and metrics
+  private final long[] acceptedCounts;
+  private final long[] rejectedCounts;
+  private final long[] gatedCounts;
+  private final int[] consecutiveGatedCounts;
+  private final double[] lastChiSquared;
+  private final double[] lastAcceptedTimestamps;
+
+  public Vision(VisionConsumer consumer, PoseHistoryLookup poseHistory, VisionIO... io) {
     this.consumer = consumer;
+    this.poseHistory = poseHistory;
     this.io = io;
 
+    this.acceptedCounts = new long[io.length];
+    this.rejectedCounts = new long[io.length];
+    this.gatedCounts = new long[io.length];
+    this.consecutiveGatedCounts = new int[io.length];
+    this.lastChiSquared = new double[io.length];
+    this.lastAcceptedTimestamps = new double[io.length];
+    Arrays.fill(lastAcceptedTimestamps, Double.NaN);
+
     // Initialize inputs
     this.inputs = new VisionIOInputs[io.length];
     for (int i = 0; i < inputs.length; i++) {
@@ -59,7 +83,7 @@ public class Vision extends SubsystemBase {
   public void periodic() {
     for (int i = 0; i < io.length; i++) {
       io[i].updateInputs(inputs[i]);
-      // Logger.processInputs("Vision/Camera" + Integer.toString(i), inputs[i]);
+      Logger.processInputs("Vision/Camera" + Integer.toString(i), inputs[i]);
     }
 
     // Initialize logging values
@@ -89,11 +113,18 @@ public class Vision extends SubsystemBase {
 
       // Loop over pose observations
       for (var observation : inputs[cameraIndex].poseObservations) {
+        boolean isQuestNav = observation.type() == PoseObservationType.QUESTNAV;
+
         // Check whether to reject pose
         boolean rejectPose =
-            observation.tagCount() == 0 // Must have at least one tag
-                || (observation.tagCount() == 1
-                    && observation.ambiguity() > maxAmbiguity) // Cannot be high ambiguity
+            (!isQuestNav // QuestNav poses don't come from tags
+                    && (observation.tagCount() == 0 // Must have at least one tag
+                        || (observation.tagCount() == 1
+                            && observation.ambiguity() > maxAmbiguity) // Cannot be high ambiguity
+                        || observation.averageTagDistance()
+                            > (observation.type() == PoseObservationType.MEGATAG_2
+                                ? maxTagDistanceMegatag2
+                                : maxTagDistance))) // Tags not too far
                 || Math.abs(observation.pose().getZ())
                     > maxZError // Must have realistic Z coordinate
 
@@ -103,9 +134,45 @@ public class Vision extends SubsystemBase {
                 || observation.pose().getY() < 0.0
                 || observation.pose().getY() > aprilTagLayout.getFieldWidth();
 
+        // Calculate standard deviations
+        double linearStdDev;
+        double angularStdDev;
+        if (isQuestNav) {
+          linearStdDev = questNavLinearStdDev;
+          angularStdDev = questNavAngularStdDev;
+        } else {
+          double stdDevFactor =
+              Math.pow(observation.averageTagDistance(), 2.0)
+                  / observation.tagCount()
+                  * (1.0 + ambiguityStdDevFactor * observation.ambiguity());
+          linearStdDev = linearStdDevBaseline * stdDevFactor;
+          angularStdDev = angularStdDevBaseline * stdDevFactor;
+        }
+        if (observation.type() == PoseObservationType.MEGATAG_2) {
+          linearStdDev *= linearStdDevMegatag2Factor;
+          angularStdDev *= angularStdDevMegatag2Factor;
+        }
+        if (cameraIndex < cameraStdDevFactors.length) {
+          linearStdDev *= cameraStdDevFactors[cameraIndex];
+          angularStdDev *= cameraStdDevFactors[cameraIndex];
+        }
+
+        // Gate against where the robot was when the frame was captured
+        if (!rejectPose) {
+          double chiSquared =
+              getChiSquared(observation, linearStdDev, angularStdDev, cameraIndex);
+          lastChiSquared[cameraIndex] = chiSquared;
+          double threshold =
+              Double.isFinite(angularStdDev) ? chiSquaredThreshold3Dof : chiSquaredThreshold2Dof;
+          if (chiSquared > threshold) {
+            gatedCounts[cameraIndex]++;
+            // After enough rejections in a row, the estimate has probably drifted, not the camera
+            rejectPose = ++consecutiveGatedCounts[cameraIndex] <= maxConsecutiveGatedRejections;
+          }
+        }
+
         // Add pose to log
         robotPoses.add(observation.pose());
-        rejectPose = false;
         if (rejectPose) {
           robotPosesRejected.add(observation.pose());
         } else {
@@ -114,30 +181,43 @@ public class Vision extends SubsystemBase {
 
         // Skip if rejected
         if (rejectPose) {
+          rejectedCounts[cameraIndex]++;
           continue;
         }
-
-        // Calculate standard deviations
-        double stdDevFactor =
-            Math.pow(observation.averageTagDistance(), 2.0) / observation.tagCount();
-        double linearStdDev = linearStdDevBaseline * stdDevFactor;
-        double angularStdDev = angularStdDevBaseline * stdDevFactor;
-        if (observation.type() == PoseObservationType.MEGATAG_2) {
-          linearStdDev *= linearStdDevMegatag2Factor;
-          angularStdDev *= angularStdDevMegatag2Factor;
-        }
-        if (cameraIndex < cameraStdDevFactors.length) {
-          linearStdDev *= cameraStdDevFactors[cameraIndex];
-          angularStdDev *= cameraStdDevFactors[cameraIndex];
-        }
+        acceptedCounts[cameraIndex]++;
+        consecutiveGatedCounts[cameraIndex] = 0;
+        lastAcceptedTimestamps[cameraIndex] = observation.timestamp();
 
         // Send vision observation
         consumer.accept(
             observation.pose().toPose2d(),
             observation.timestamp(),
             VecBuilder.fill(linearStdDev, linearStdDev, angularStdDev));
+
+        // Re-anchor the QuestNav to close tag sightings, which are more accurate than its drift.
+        // The sighting is from when the frame was captured, so carry it forward by the motion
+        // odometry has seen since then; skip it if either end isn't in the pose history.
+        if (!isQuestNav && observation.averageTagDistance() < questNavResetTagDistance) {
+          Optional<Pose2d> poseAtCapture = poseHistory.getPoseAt(observation.timestamp());
+          Optional<Pose2d> poseNow = poseHistory.getPoseAt(Timer.getFPGATimestamp());
+          if (poseAtCapture.isPresent() && poseNow.isPresent()) {
+            QuestNav.INSTANCE.resetPose(
+                observation.pose().toPose2d().transformBy(poseNow.get().minus(poseAtCapture.get())));
+          }
+        }
       }
 
+      // Log camera metrics
+      String cameraKey = "Vision/Camera" + Integer.toString(cameraIndex);
+      long total = acceptedCounts[cameraIndex] + rejectedCounts[cameraIndex];
+      Logger.recordOutput(cameraKey + "/AcceptedCount", acceptedCounts[cameraIndex]);
+      Logger.recordOutput(cameraKey + "/RejectedCount", rejectedCounts[cameraIndex]);
+      Logger.recordOutput(cameraKey + "/GatedCount", gatedCounts[cameraIndex]);
+      Logger.recordOutput(
+          cameraKey + "/AcceptanceRate",
+          total == 0 ? 1.0 : (double) acceptedCounts[cameraIndex] / total);
+      Logger.recordOutput(cameraKey + "/ChiSquared", lastChiSquared[cameraIndex]);
+
       // Log camera datadata
       Logger.recordOutput(
           "Vision/Camera" + Integer.toString(cameraIndex) + "/TagPoses",
@@ -170,6 +250,55 @@ public class Vision extends SubsystemBase {
         allRobotPosesRejected.toArray(new Pose3d[allRobotPosesRejected.size()]));
   }
 
+  /**
+   * Squared Mahalanobis distance between an observation and the estimated pose at its timestamp.
+   * The covariance is the observation's plus the odometry's, which grows with the time since this
+   * camera last had an observation accepted. Returns 0 (always accept) if there is nothing to compare
+   * against: no pose history at that time (e.g. right after a pose reset) or no accepted observation
+   * from this camera yet.
+   */
+  private double getChiSquared(
+      PoseObservation observation, double linearStdDev, double angularStdDev, int cameraIndex) {
+    if (Double.isNaN(lastAcceptedTimestamps[cameraIndex])) {
+      return 0.0;
+    }
+    Optional<Pose2d> expected = poseHistory.getPoseAt(observation.timestamp());
+    if (expected.isEmpty()) {
+      return 0.0;
+    }
+
+    double elapsed =
+        MathUtil.clamp(
+            observation.timestamp() - lastAcceptedTimestamps[cameraIndex],
+            0.0,
+            gatingMaxDriftSeconds);
+    double odometryLinearStdDev =
+        gatingOdometryLinearStdDev + gatingOdometryLinearDriftPerSecond * elapsed;
+    double odometryAngularStdDev =
+        gatingOdometryAngularStdDev + gatingOdometryAngularDriftPerSecond * elapsed;
+
+    Pose2d measured = observation.pose().toPose2d();
+    double dx = measured.getX() - expected.get().getX();
+    double dy = measured.getY() - expected.get().getY();
+    double chiSquared =
+        (dx * dx + dy * dy)
+            / (odometryLinearStdDev * odometryLinearStdDev + linearStdDev * linearStdDev);
+    if (Double.isFinite(angularStdDev)) {
+      double dTheta = measured.getRotation().minus(expected.get().getRotation()).getRadians();
+      chiSquared +=
+          dTheta
+              * dTheta
+              / (odometryAngularStdDev * odometryAngularStdDev + angularStdDev * angularStdDev);
+    }
+    return chiSquared;
+  }
+
+  @FunctionalInterface
+  public static interface PoseHistoryLookup {
+    /** Returns the estimated pose at an FPGA timestamp, or empty if it isn't known. */
+    public Optional<Pose2d> getPoseAt(double timestampSeconds);
+  }
+
   @FunctionalInterface
   public static interface VisionConsumer {
     public void accept(
@@ -2,42 +2,60 @@ package frc.robot.subsystems.vision;
 
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.apriltag.AprilTagFields;
-import edu.wpi.first.math.geometry.Rotation3d;
-import edu.wpi.first.math.geometry.Transform3d;
-
-// TODO: NONE OF THESE CONSTANTS ARE CONFIGURED. IF WE USE METHODS WITH THEM, 
 
 public class VisionConstants {
   // AprilTag layout
   public static AprilTagFieldLayout aprilTagLayout =
       AprilTagFieldLayout.loadField(AprilTagFields.kDefaultField);
 
-  // Camera names, must match names configured on coprocessor
-  public static String camera0Name = "camera_0";
-  public static String camera1Name = "camera_1";
-
-  // Robot to camera transforms
-  // (Not used by Limelight, configure in web UI instead)
-  public static Transform3d robotToCamera0 =
-      new Transform3d(0.0, 0.2, 0.0, new Rotation3d(0.0, 0, Math.PI / 2));
-  public static Transform3d robotToCamera1 =
-      new Transform3d(0.1, -0.22, 0.2, new Rotation3d(0.0, 0.0, 0.0));
-
   // Basic filtering thresholds
   public static double maxAmbiguity = 0.3;
   public static double maxZError = 10;
+  public static double maxTagDistance = 2.0; // Meters, beyond this the old fusion ignored tags too
+  // MegaTag 2 takes the heading from the gyro, so its position holds up much farther out
+  public static double maxTagDistanceMegatag2 = 4.0; // Meters
+  // MegaTag 2 frames are ignored while the robot turns faster than this
+  public static double maxMegatag2YawRate = 720.0; // Degrees per second
+
+  // Ambiguity scales the standard deviations by (1 + factor * ambiguity)
+  public static double ambiguityStdDevFactor = 5.0;
+
+  // Statistical gating against the pose history at each observation's timestamp
+  // (chi-square 99% thresholds; 2 DOF when the observation has no usable rotation)
+  public static double chiSquaredThreshold3Dof = 11.34;
+  public static double chiSquaredThreshold2Dof = 9.21;
+  // How far odometry may have drifted: a baseline plus growth with time since the last accepted
+  // observation from the camera, capped at gatingMaxDriftSeconds
+  public static double gatingOdometryLinearStdDev = 0.1; // Meters
+  public static double gatingOdometryLinearDriftPerSecond = 0.1; // Meters per second
+  public static double gatingOdometryAngularStdDev = 0.05; // Radians
+  public static double gatingOdometryAngularDriftPerSecond = 0.02; // Radians per second
+  public static double gatingMaxDriftSeconds = 10.0;
+  // After this many gated observations in a row, accept anyway (the estimate is probably wrong)
+  public static int maxConsecutiveGatedRejections = 10;
 
   // Standard deviation baselines, for 1 meter distance and 1 tag
   // (Adjusted automatically based on distance and # of tags)
+  // AdvantageKit's defaults, measured on real cameras, until ours are measured: log single-tag poses
+  // with the robot still at known distances and take the spread at 1m. The old hand-tuned ladder
+  // (0.001-0.0065) trusted a single frame over odometry almost completely.
   public static double linearStdDevBaseline = 0.02; // Meters
   public static double angularStdDevBaseline = 0.06; // Radians
 
+  // QuestNav is not tag based, so it has fixed standard deviations (the old fusion's, tuned on the
+  // robot)
+  public static double questNavLinearStdDev = 0.007; // Meters
+  public static double questNavAngularStdDev = 0.1; // Radians
+
+  // The QuestNav is re-anchored to Limelight poses from tags closer than this
+  public static double questNavResetTagDistance = 1.5; // Meters
+
   // Standard deviation multipliers for each camera
   // (Adjust to trust some cameras more than others)
   public static double[] cameraStdDevFactors =
       new double[] {
-        1.0, // Camera 0
-        1.0 // Camera 1
+        1.0, // Camera 0, Limelight
+        1.0 // Camera 1, QuestNav
       };
 
   // Multipliers to apply for MegaTag 2 observations
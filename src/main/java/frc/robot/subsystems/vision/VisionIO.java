@@ -2,16 +2,33 @@ package frc.robot.subsystems.vision;
 
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import org.littletonrobotics.junction.AutoLog;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
 
 public interface VisionIO {
-  @AutoLog
-  public static class VisionIOInputs {
+  /** Everything read from a camera once per loop. Logged (and replayed) by AdvantageKit. */
+  public static class VisionIOInputs implements LoggableInputs {
     public boolean connected = false;
     public TargetObservation latestTargetObservation =
         new TargetObservation(new Rotation2d(), new Rotation2d());
     public PoseObservation[] poseObservations = new PoseObservation[0];
     public int[] tagIds = new int[0];
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("Connected", connected);
+      table.put("LatestTargetObservation", latestTargetObservation);
+      table.put("PoseObservations", poseObservations);
+      table.put("TagIds", tagIds);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      connected = table.get("Connected", connected);
+      latestTargetObservation = table.get("LatestTargetObservation", latestTargetObservation);
+      poseObservations = table.get("PoseObservations", poseObservations);
+      tagIds = table.get("TagIds", tagIds);
+    }
   }
 
   /** Represents the angle to a simple target, not used for pose estimation. */
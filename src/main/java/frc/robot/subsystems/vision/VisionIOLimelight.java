@@ -0,0 +1,74 @@
+package frc.robot.subsystems.vision;
+
+import static edu.wpi.first.units.Units.DegreesPerSecond;
+import static frc.robot.subsystems.vision.VisionConstants.maxMegatag2YawRate;
+
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import frc.robot.subsystems.staticsubsystems.LimeLight;
+import frc.robot.subsystems.staticsubsystems.LimeLight.LimeyApriltagFrame;
+import frc.robot.subsystems.staticsubsystems.RobotGyro;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * IO implementation for the Limelight. Every new botpose_wpiblue frame becomes one MegaTag 1 pose
+ * observation and every new botpose_orb_wpiblue frame one MegaTag 2 observation, read through
+ * {@link LimeLight#readLimeyApriltagFrames} so no frame is dropped or repeated.
+ *
+ * <p>MegaTag 2 needs the robot's heading, which is sent every loop but not flushed; the robot loop
+ * flushes NetworkTables once at its end.
+ */
+public class VisionIOLimelight implements VisionIO {
+  private final Supplier<Rotation2d> rotationSupplier;
+  private final LimeyApriltagFrame[] frames = LimeLight.newLimeyApriltagFrameBuffer();
+  private final PoseObservation[] observations = new PoseObservation[frames.length];
+  private final int[] tagIds = new int[frames.length];
+
+  /**
+   * @param rotationSupplier The robot's estimated heading on the field, blue origin
+   */
+  public VisionIOLimelight(Supplier<Rotation2d> rotationSupplier) {
+    this.rotationSupplier = rotationSupplier;
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    double yawRate = RobotGyro.getYawAngularVelocity().in(DegreesPerSecond);
+    LimeLight.setRobotOrientation(rotationSupplier.get().getDegrees(), yawRate);
+
+    int frameCount = LimeLight.readLimeyApriltagFrames(frames);
+
+    inputs.connected = LimeLight.isLimeyConnected();
+    inputs.latestTargetObservation =
+        new TargetObservation(
+            Rotation2d.fromDegrees(LimeLight.getLimeyTX()),
+            Rotation2d.fromDegrees(LimeLight.getLimeyTY()));
+
+    // MegaTag 2 frames captured while spinning this fast used a heading that was already stale
+    boolean megaTag2Usable = Math.abs(yawRate) <= maxMegatag2YawRate;
+
+    // the observations are logged inputs, so only frames that become one allocate
+    int count = 0;
+    for (int i = 0; i < frameCount; i++) {
+      LimeyApriltagFrame frame = frames[i];
+      if (frame.tagCount == 0 || (frame.megaTag2 && !megaTag2Usable)) {
+        continue;
+      }
+      observations[count] =
+          new PoseObservation(
+              frame.timestamp,
+              new Pose3d(
+                  frame.x, frame.y, 0, new Rotation3d(0, 0, Math.toRadians(frame.yawDegrees))),
+              frame.ambiguity,
+              frame.tagCount,
+              frame.distance,
+              frame.megaTag2 ? PoseObservationType.MEGATAG_2 : PoseObservationType.MEGATAG_1);
+      tagIds[count] = frame.tag;
+      count++;
+    }
+    inputs.poseObservations = Arrays.copyOf(observations, count);
+    inputs.tagIds = Arrays.stream(tagIds, 0, count).filter(id -> id > 0).distinct().toArray();
+  }
+}
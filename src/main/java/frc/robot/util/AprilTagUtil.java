@@ -4,14 +4,64 @@ import java.util.Optional;
 
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Translation2d;
 
 public final class AprilTagUtil {
     private static final AprilTagFieldLayout FIELD_LAYOUT = AprilTagFieldLayout.loadField(AprilTagFields.k2025ReefscapeWelded);
+    // one tag on each of the six faces of each alliance's reef
+    private static final int[] REEF_TAG_IDS = {6, 7, 8, 9, 10, 11, 17, 18, 19, 20, 21, 22};
 
     public static Optional<Pose3d> getTagPose(int tagId) {
         return FIELD_LAYOUT.getTagPose(tagId);
     }
+
+    public static AprilTagFieldLayout getFieldLayout() {
+        return FIELD_LAYOUT;
+    }
+
+    public static boolean isReefTag(int tagId) {
+        for (int reefTagId : REEF_TAG_IDS) {
+            if (reefTagId == tagId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param position A position on the field, blue origin
+     * @return The ID of the reef tag closest to that position, on either alliance's reef.
+     */
+    public static int getNearestReefTag(Translation2d position) {
+        int nearestTagId = REEF_TAG_IDS[0];
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int tagId : REEF_TAG_IDS) {
+            Optional<Pose3d> tagPose = getTagPose(tagId);
+            if (tagPose.isEmpty()) {
+                continue;
+            }
+            double distance = tagPose.get().toPose2d().getTranslation().getDistance(position);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearestTagId = tagId;
+            }
+        }
+        return nearestTagId;
+    }
+
+    /**
+     * @param tagId    The tag's ID
+     * @param distance How far in front of the tag, in meters
+     * @return The pose this far straight out from the tag's face, facing the same way as the tag. Empty if there is no such tag.
+     */
+    public static Optional<Pose2d> getPoseInFrontOfTag(int tagId, double distance) {
+        return getTagPose(tagId).map(tagPose -> {
+            Pose2d tagPose2d = tagPose.toPose2d();
+            return new Pose2d(tagPose2d.getTranslation().plus(new Translation2d(distance, tagPose2d.getRotation())), tagPose2d.getRotation());
+        });
+    }
     
     private AprilTagUtil() {}
 }
@@ -0,0 +1,347 @@
+package frc.robot.util;
+
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A precomputed lookup over a polyline of poses (usually the states of a {@link PathPlannerTrajectory}).
+ * <p>
+ * Stores the cumulative arc length at every point and a 2d tree over the points, so that projecting the robot onto the
+ * path only checks the segments near it, and converting between arc length and time is O(log n), instead of walking the
+ * list from the start every time.
+ * <p>
+ * Build one of these once per trajectory and reuse it; building is O(n log n).
+ */
+public final class ArcLengthIndex {
+    private final double[] xs;
+    private final double[] ys;
+    /** Cumulative arc length at each point, in meters. arcLengths[0] is always 0. */
+    private final double[] arcLengths;
+    /** Time at each point, in seconds, or null if this index was built from plain poses. */
+    private final double[] times;
+    /** Point indices arranged as an implicit balanced 2d tree (median of each range is the node). */
+    private final int[] tree;
+    /** Length of the longest segment, in meters; bounds how far from the closest point its segment's endpoints can be. */
+    private final double maxSegmentLength;
+
+    /**
+     * The result of projecting a position onto the path.
+     *
+     * @param segmentIndex index of the first point of the closest segment
+     * @param fraction     how far along that segment the projection is, [0, 1]
+     * @param arcLength    distance along the path to the projection, in meters
+     * @param time         time along the trajectory at the projection, in seconds (NaN if the index has no times)
+     * @param distance     distance from the queried position to the projection, in meters
+     */
+    public record Projection(int segmentIndex, double fraction, double arcLength, double time, double distance) {
+    }
+
+    private ArcLengthIndex(double[] xs, double[] ys, double[] times) {
+        this.xs = xs;
+        this.ys = ys;
+        this.times = times;
+
+        this.arcLengths = new double[xs.length];
+        double longest = 0;
+        for (int i = 1; i < xs.length; i++) {
+            double segmentLength = Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+            arcLengths[i] = arcLengths[i - 1] + segmentLength;
+            longest = Math.max(longest, segmentLength);
+        }
+        this.maxSegmentLength = longest;
+
+        this.tree = new int[xs.length];
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = i;
+        }
+        build(0, tree.length, 0);
+    }
+
+    /**
+     * Builds an index over the states of a trajectory.
+     *
+     * @param trajectory The trajectory to index. Must have at least one state.
+     * @return The index
+     */
+    public static ArcLengthIndex of(PathPlannerTrajectory trajectory) {
+        List<PathPlannerTrajectoryState> states = trajectory.getStates();
+        double[] xs = new double[states.size()];
+        double[] ys = new double[states.size()];
+        double[] times = new double[states.size()];
+        for (int i = 0; i < states.size(); i++) {
+            PathPlannerTrajectoryState state = states.get(i);
+            xs[i] = state.pose.getX();
+            ys[i] = state.pose.getY();
+            times[i] = state.timeSeconds;
+        }
+        return new ArcLengthIndex(xs, ys, times);
+    }
+
+    /**
+     * Builds an index over a list of poses, such as {@link com.pathplanner.lib.path.PathPlannerPath#getPathPoses()}.
+     * Time lookups are not available on the returned index.
+     *
+     * @param poses The poses to index. Must have at least one pose.
+     * @return The index
+     */
+    public static ArcLengthIndex ofPoses(List<Pose2d> poses) {
+        double[] xs = new double[poses.size()];
+        double[] ys = new double[poses.size()];
+        for (int i = 0; i < poses.size(); i++) {
+            xs[i] = poses.get(i).getX();
+            ys[i] = poses.get(i).getY();
+        }
+        return new ArcLengthIndex(xs, ys, null);
+    }
+
+    /**
+     * @return The number of points in this index.
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    /**
+     * @return The total length of the path, in meters.
+     */
+    public double getTotalLength() {
+        return arcLengths[arcLengths.length - 1];
+    }
+
+    /**
+     * @param index A point index
+     * @return The distance along the path to that point, in meters.
+     */
+    public double getArcLength(int index) {
+        return arcLengths[index];
+    }
+
+    /**
+     * Finds the last point at or before a given distance along the path.
+     *
+     * @param arcLength A distance along the path, in meters
+     * @return The index of the last point whose arc length is less than or equal to the given distance, clamped to the
+     * valid point range.
+     */
+    public int indexAtOrBefore(double arcLength) {
+        return floorIndex(arcLengths, arcLength);
+    }
+
+    /**
+     * Converts a distance along the path to a time along the trajectory.
+     *
+     * @param arcLength A distance along the path, in meters
+     * @return The interpolated trajectory time at that distance, in seconds.
+     */
+    public double timeAtArcLength(double arcLength) {
+        requireTimes();
+        return interpolate(arcLengths, times, arcLength);
+    }
+
+    /**
+     * Converts a time along the trajectory to a distance along the path.
+     *
+     * @param time A time along the trajectory, in seconds
+     * @return The interpolated distance along the path at that time, in meters.
+     */
+    public double arcLengthAtTime(double time) {
+        requireTimes();
+        return interpolate(times, arcLengths, time);
+    }
+
+    /**
+     * Projects a position onto the closest point of the path.
+     *
+     * @param position The position to project, usually the robot's translation
+     * @return The closest point on the path to the given position.
+     */
+    public Projection project(Translation2d position) {
+        double px = position.getX();
+        double py = position.getY();
+
+        if (xs.length == 1) {
+            return new Projection(0, 0, 0, times == null ? Double.NaN : times[0], Math.hypot(xs[0] - px, ys[0] - py));
+        }
+
+        int nearest = nearestPoint(px, py);
+        double nearestDistance = Math.hypot(xs[nearest] - px, ys[nearest] - py);
+
+        // The closest segment is at most nearestDistance away, and every point on a segment is within half its length of one
+        // of its endpoints, so that segment has an endpoint within nearestDistance + maxSegmentLength / 2. Checking the
+        // segments touching every point in that radius finds it exactly, even when it passes close by with far endpoints.
+        double radius = nearestDistance + maxSegmentLength / 2;
+        Projection[] best = {null};
+        searchRadius(0, tree.length, 0, px, py, radius * radius, best);
+        return best[0];
+    }
+
+    private void considerSegment(int seg, double px, double py, Projection[] best) {
+        Projection candidate = projectOntoSegment(seg, px, py);
+        // on a tie, prefer the earlier segment, so the result doesn't depend on the tree's order
+        if (best[0] == null || candidate.distance() < best[0].distance()
+                || (candidate.distance() == best[0].distance() && seg < best[0].segmentIndex())) {
+            best[0] = candidate;
+        }
+    }
+
+    private Projection projectOntoSegment(int seg, double px, double py) {
+        double ax = xs[seg];
+        double ay = ys[seg];
+        double dx = xs[seg + 1] - ax;
+        double dy = ys[seg + 1] - ay;
+        double lengthSq = dx * dx + dy * dy;
+
+        double fraction = lengthSq < 1e-12 ? 0 : MathUtil.clamp(((px - ax) * dx + (py - ay) * dy) / lengthSq, 0.0, 1.0);
+        double projX = ax + dx * fraction;
+        double projY = ay + dy * fraction;
+
+        double arcLength = MathUtil.interpolate(arcLengths[seg], arcLengths[seg + 1], fraction);
+        double time = times == null ? Double.NaN : MathUtil.interpolate(times[seg], times[seg + 1], fraction);
+        return new Projection(seg, fraction, arcLength, time, Math.hypot(px - projX, py - projY));
+    }
+
+    private void requireTimes() {
+        if (times == null) {
+            throw new IllegalStateException("ArcLengthIndex was built from poses and has no times");
+        }
+    }
+
+    // ---------- 2d tree ----------
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, depth % 2 == 0);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Quickselect so that tree[k] holds the median of tree[lo..hi] along one axis, with smaller values before it.
+     */
+    private void select(int lo, int hi, int k, boolean byX) {
+        while (lo < hi) {
+            double pivot = coord(tree[(lo + hi) >>> 1], byX);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coord(tree[i], byX) < pivot) i++;
+                while (coord(tree[j], byX) > pivot) j--;
+                if (i <= j) {
+                    int tmp = tree[i];
+                    tree[i] = tree[j];
+                    tree[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coord(int point, boolean byX) {
+        return byX ? xs[point] : ys[point];
+    }
+
+    private int nearestPoint(double px, double py) {
+        double[] bestDistSq = {Double.POSITIVE_INFINITY};
+        int[] best = {0};
+        search(0, tree.length, 0, px, py, bestDistSq, best);
+        return best[0];
+    }
+
+    private void search(int lo, int hi, int depth, double px, double py, double[] bestDistSq, int[] best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int point = tree[mid];
+
+        double dx = xs[point] - px;
+        double dy = ys[point] - py;
+        double distSq = dx * dx + dy * dy;
+        if (distSq < bestDistSq[0]) {
+            bestDistSq[0] = distSq;
+            best[0] = point;
+        }
+
+        boolean byX = depth % 2 == 0;
+        double axisDiff = byX ? px - xs[point] : py - ys[point];
+        if (axisDiff < 0) {
+            search(lo, mid, depth + 1, px, py, bestDistSq, best);
+            if (axisDiff * axisDiff < bestDistSq[0]) {
+                search(mid + 1, hi, depth + 1, px, py, bestDistSq, best);
+            }
+        } else {
+            search(mid + 1, hi, depth + 1, px, py, bestDistSq, best);
+            if (axisDiff * axisDiff < bestDistSq[0]) {
+                search(lo, mid, depth + 1, px, py, bestDistSq, best);
+            }
+        }
+    }
+
+    /**
+     * Checks the segments touching every point within sqrt(radiusSq) of the position.
+     */
+    private void searchRadius(int lo, int hi, int depth, double px, double py, double radiusSq, Projection[] best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int point = tree[mid];
+
+        double dx = xs[point] - px;
+        double dy = ys[point] - py;
+        if (dx * dx + dy * dy <= radiusSq) {
+            if (point > 0) {
+                considerSegment(point - 1, px, py, best);
+            }
+            if (point < xs.length - 1) {
+                considerSegment(point, px, py, best);
+            }
+        }
+
+        boolean byX = depth % 2 == 0;
+        double axisDiff = byX ? px - xs[point] : py - ys[point];
+        if (axisDiff < 0 || axisDiff * axisDiff <= radiusSq) {
+            searchRadius(lo, mid, depth + 1, px, py, radiusSq, best);
+        }
+        if (axisDiff >= 0 || axisDiff * axisDiff <= radiusSq) {
+            searchRadius(mid + 1, hi, depth + 1, px, py, radiusSq, best);
+        }
+    }
+
+    // ---------- sorted array lookups ----------
+
+    private static int floorIndex(double[] sorted, double value) {
+        int idx = Arrays.binarySearch(sorted, value);
+        if (idx < 0) {
+            idx = -idx - 2; // insertion point - 1
+        }
+        return MathUtil.clamp(idx, 0, sorted.length - 1);
+    }
+
+    private static double interpolate(double[] keys, double[] values, double key) {
+        int lo = floorIndex(keys, key);
+        if (lo >= keys.length - 1) {
+            return values[values.length - 1];
+        }
+        double span = keys[lo + 1] - keys[lo];
+        double t = span <= 0 ? 0 : MathUtil.clamp((key - keys[lo]) / span, 0.0, 1.0);
+        return MathUtil.interpolate(values[lo], values[lo + 1], t);
+    }
+}
@@ -0,0 +1,57 @@
+package frc.robot.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rough estimate of how busy the CAN bus will be, built up from the configured update rates of every device as it is
+ * created. Printed once at boot with {@link #report()}.
+ * <p>
+ * This is only as good as the rates devices register; it does not measure anything. See the CAN status reported by the
+ * roboRIO for the real utilization.
+ */
+public final class CanBusLoadEstimate {
+    /**
+     * An extended-ID frame with 8 data bytes is 128 bits before bit stuffing; stuffing typically adds a few more.
+     */
+    private static final double BITS_PER_FRAME = 135;
+    private static final double BUS_BITS_PER_SECOND = 1_000_000;
+
+    private static final Map<String, Double> framesPerSecond = new LinkedHashMap<>();
+
+    private CanBusLoadEstimate() {
+    }
+
+    /**
+     * Adds a device's expected traffic. Adding the same name again adds to its existing traffic.
+     *
+     * @param device A name for the device
+     * @param fps    The number of frames per second the device is expected to send and receive
+     */
+    public static void add(String device, double fps) {
+        framesPerSecond.merge(device, fps, Double::sum);
+    }
+
+    /**
+     * @return The estimated total number of frames per second on the bus.
+     */
+    public static double getTotalFramesPerSecond() {
+        return framesPerSecond.values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    /**
+     * @return The estimated fraction of the bus's bandwidth in use, [0, 1+].
+     */
+    public static double getEstimatedUtilization() {
+        return getTotalFramesPerSecond() * BITS_PER_FRAME / BUS_BITS_PER_SECOND;
+    }
+
+    /**
+     * Prints the traffic of each registered device and the estimated total bus load.
+     */
+    public static void report() {
+        System.out.println("Estimated CAN bus load:");
+        framesPerSecond.forEach((device, fps) -> System.out.printf("  %-24s %7.1f frames/s%n", device, fps));
+        System.out.printf("  %-24s %7.1f frames/s, ~%.0f%% of the bus%n", "total", getTotalFramesPerSecond(), getEstimatedUtilization() * 100);
+    }
+}
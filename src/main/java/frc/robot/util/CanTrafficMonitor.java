@@ -0,0 +1,143 @@
+package frc.robot.util;
+
+import com.revrobotics.spark.SparkBase;
+import edu.wpi.first.hal.can.CANStatus;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.CANBusConstants;
+import frc.robot.Constants.PortConstants;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Publishes CAN bus health to NetworkTables (the "can" table): the roboRIO's reported utilization and error counters,
+ * how many motor controller commands were sent in the last loop, and which devices sent the most.
+ * <p>
+ * Commands are counted by calling {@link #countCommand(SparkBase)} next to every set/setVoltage/setReference. Devices
+ * are named after their field in {@link PortConstants.CAN}.
+ * <p>
+ * Warns on the Driver Station when utilization or commands per loop go over the budgets in {@link CANBusConstants}.
+ */
+public final class CanTrafficMonitor {
+    private static final int MAX_CAN_ID = 63;
+    private static final int TOP_TALKER_COUNT = 5;
+    /** Top talkers are only recomputed this often, since it means sorting. */
+    private static final double TOP_TALKER_PERIOD_SECONDS = 1.0;
+    private static final double WARNING_PERIOD_SECONDS = 5.0;
+
+    private static final NetworkTable TABLE = NetworkTablesUtil.getTable("can");
+    private static final DoublePublisher utilizationPub = TABLE.getDoubleTopic("utilization").publish();
+    private static final IntegerPublisher busOffPub = TABLE.getIntegerTopic("bus_off_count").publish();
+    private static final IntegerPublisher txFullPub = TABLE.getIntegerTopic("tx_full_count").publish();
+    private static final IntegerPublisher rxErrorPub = TABLE.getIntegerTopic("rx_error_count").publish();
+    private static final IntegerPublisher txErrorPub = TABLE.getIntegerTopic("tx_error_count").publish();
+    private static final IntegerPublisher commandsPerLoopPub = TABLE.getIntegerTopic("commands_per_loop").publish();
+    private static final StringArrayPublisher topTalkersPub = TABLE.getStringArrayTopic("top_talkers").publish();
+
+    private static final String[] deviceNames = loadDeviceNames();
+    private static final int[] commandsThisLoop = new int[MAX_CAN_ID + 1];
+    private static final long[] commandsThisWindow = new long[MAX_CAN_ID + 1];
+    private static double windowStart = Timer.getFPGATimestamp();
+    private static double lastWarningTime = Double.NEGATIVE_INFINITY;
+
+    private CanTrafficMonitor() {
+    }
+
+    /**
+     * Count one command sent to a motor controller. Call this next to every set, setVoltage or setReference.
+     *
+     * @param motor The motor controller the command is sent to
+     */
+    public static void countCommand(SparkBase motor) {
+        int id = motor.getDeviceId();
+        if (id >= 0 && id <= MAX_CAN_ID) {
+            commandsThisLoop[id]++;
+        }
+    }
+
+    /**
+     * Samples the bus status and publishes everything. Call once per loop.
+     */
+    public static void periodic() {
+        CANStatus status = RobotController.getCANStatus();
+        utilizationPub.set(status.percentBusUtilization);
+        busOffPub.set(status.busOffCount);
+        txFullPub.set(status.txFullCount);
+        rxErrorPub.set(status.receiveErrorCount);
+        txErrorPub.set(status.transmitErrorCount);
+
+        int commands = 0;
+        for (int id = 0; id <= MAX_CAN_ID; id++) {
+            commands += commandsThisLoop[id];
+            commandsThisWindow[id] += commandsThisLoop[id];
+            commandsThisLoop[id] = 0;
+        }
+        commandsPerLoopPub.set(commands);
+
+        double now = Timer.getFPGATimestamp();
+        if (now - windowStart >= TOP_TALKER_PERIOD_SECONDS) {
+            topTalkersPub.set(computeTopTalkers(now - windowStart));
+            Arrays.fill(commandsThisWindow, 0);
+            windowStart = now;
+        }
+
+        // percentBusUtilization is reported as a fraction despite the name
+        boolean overUtilization = status.percentBusUtilization > CANBusConstants.UTILIZATION_BUDGET;
+        boolean overCommands = commands > CANBusConstants.COMMANDS_PER_LOOP_BUDGET;
+        if ((overUtilization || overCommands) && now - lastWarningTime >= WARNING_PERIOD_SECONDS) {
+            lastWarningTime = now;
+            DriverStation.reportWarning(String.format("CAN bus over budget: %.0f%% utilization (budget %.0f%%), %d commands last loop (budget %d)",
+                    status.percentBusUtilization * 100, CANBusConstants.UTILIZATION_BUDGET * 100, commands, CANBusConstants.COMMANDS_PER_LOOP_BUDGET), false);
+        }
+    }
+
+    private static String[] computeTopTalkers(double windowSeconds) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id <= MAX_CAN_ID; id++) {
+            if (commandsThisWindow[id] > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> Long.compare(commandsThisWindow[b], commandsThisWindow[a]));
+
+        String[] talkers = new String[Math.min(TOP_TALKER_COUNT, ids.size())];
+        for (int i = 0; i < talkers.length; i++) {
+            int id = ids.get(i);
+            talkers[i] = String.format("%s: %.0f/s", deviceNames[id], commandsThisWindow[id] / windowSeconds);
+        }
+        return talkers;
+    }
+
+    /**
+     * Names each CAN ID after the motor constant in {@link PortConstants.CAN} that uses it, falling back to "CAN id".
+     */
+    private static String[] loadDeviceNames() {
+        String[] names = new String[MAX_CAN_ID + 1];
+        for (int id = 0; id <= MAX_CAN_ID; id++) {
+            names[id] = "CAN " + id;
+        }
+        for (Field field : PortConstants.CAN.class.getFields()) {
+            // CANcoders have their own ID space and never receive motor commands
+            if (field.getType() != int.class || !Modifier.isStatic(field.getModifiers()) || field.getName().contains("CANCODER")) {
+                continue;
+            }
+            try {
+                int id = field.getInt(null);
+                if (id >= 0 && id <= MAX_CAN_ID) {
+                    names[id] = field.getName();
+                }
+            } catch (IllegalAccessException ignored) {
+            }
+        }
+        return names;
+    }
+}
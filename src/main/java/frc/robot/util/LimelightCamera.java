@@ -0,0 +1,292 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.GenericSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDouble;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import edu.wpi.first.wpilibj.RobotController;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The NetworkTables topics of one Limelight, subscribed to once so reading them every loop doesn't look tables and entries up by name
+ * like {@link NetworkTablesUtil#getEntry(String, String)} and the {@link frc.robot.LimelightHelpers} getters do.
+ * <p>
+ * Get one with {@link #get(String)}; every caller asking for the same camera shares its subscribers, including the queued ones, so only one
+ * place should read each queue (see {@link frc.robot.subsystems.staticsubsystems.LimeLight#readLimeyApriltagFrames}).
+ */
+public final class LimelightCamera {
+    /**
+     * How many values of each queued topic are kept between reads. The Limelight runs at up to ~90 fps, under 2 frames per loop, so this
+     * is plenty of slack for a slow loop.
+     */
+    public static final int QUEUE_DEPTH = 20;
+    /**
+     * The Limelight is considered disconnected when its heartbeat hasn't changed for this long.
+     */
+    private static final long CONNECTION_TIMEOUT_MICROS = 250_000;
+    private static final double[] EMPTY = new double[0];
+
+    private static final Map<String, LimelightCamera> cameras = new HashMap<>();
+
+    private final String name;
+    private final DoubleSubscriber tv;
+    private final DoubleSubscriber tx;
+    private final DoubleSubscriber ty;
+    private final DoubleSubscriber tid;
+    private final DoubleSubscriber pipelineLatency;
+    private final DoubleSubscriber captureLatency;
+    // generic since the heartbeat's type differs between firmwares
+    private final GenericSubscriber heartbeat;
+    private final DoubleEntry pipeline;
+    private final DoubleArraySubscriber botPose;
+    private final DoubleArraySubscriber botPoseTargetSpace;
+    private final DoubleArraySubscriber cameraPoseRobotSpace;
+    // getRobotToCamera's last result, and the camerapose_robotspace value it was made from
+    private double[] lastCameraPoseRobotSpace = EMPTY;
+    private Transform3d robotToCamera = null;
+    private final DoubleArrayPublisher robotOrientation;
+    // reused by setRobotOrientationNoFlush
+    private final double[] robotOrientationBuffer = new double[6];
+    private final DoubleArrayPublisher cropWindow;
+    private final DoubleArrayPublisher fiducialIdFilter;
+    private final DoublePublisher fiducialDownscale;
+
+    // queued, so every frame is seen once no matter how the camera's frame rate lines up with the loop
+    private final DoubleArraySubscriber botPoseQueue;
+    private final DoubleArraySubscriber botPoseMegaTag2Queue;
+    private final DoubleSubscriber tagIdQueue;
+    private final GenericSubscriber heartbeatQueue;
+
+    private LimelightCamera(String name) {
+        this.name = name;
+        NetworkTable table = NetworkTablesUtil.getTable(name);
+        this.tv = table.getDoubleTopic("tv").subscribe(0);
+        this.tx = table.getDoubleTopic("tx").subscribe(0);
+        this.ty = table.getDoubleTopic("ty").subscribe(0);
+        this.tid = table.getDoubleTopic("tid").subscribe(-1);
+        this.pipelineLatency = table.getDoubleTopic("tl").subscribe(0);
+        this.captureLatency = table.getDoubleTopic("cl").subscribe(0);
+        this.heartbeat = table.getTopic("hb").genericSubscribe();
+        this.pipeline = table.getDoubleTopic("pipeline").getEntry(0);
+        this.botPose = table.getDoubleArrayTopic("botpose_wpiblue").subscribe(EMPTY);
+        this.botPoseTargetSpace = table.getDoubleArrayTopic("botpose_targetspace").subscribe(EMPTY);
+        this.cameraPoseRobotSpace = table.getDoubleArrayTopic("camerapose_robotspace").subscribe(EMPTY);
+        this.robotOrientation = table.getDoubleArrayTopic("robot_orientation_set").publish();
+        // these keep duplicates so the same value can be sent again after the Limelight restarts
+        this.cropWindow = table.getDoubleArrayTopic("crop").publish(PubSubOption.keepDuplicates(true));
+        this.fiducialIdFilter = table.getDoubleArrayTopic("fiducial_id_filters_set").publish(PubSubOption.keepDuplicates(true));
+        this.fiducialDownscale = table.getDoubleTopic("fiducial_downscale_set").publish(PubSubOption.keepDuplicates(true));
+
+        this.botPoseQueue = table.getDoubleArrayTopic("botpose_wpiblue").subscribe(EMPTY, PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_DEPTH));
+        this.botPoseMegaTag2Queue = table.getDoubleArrayTopic("botpose_orb_wpiblue").subscribe(EMPTY, PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_DEPTH));
+        this.tagIdQueue = table.getDoubleTopic("tid").subscribe(-1, PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_DEPTH));
+        this.heartbeatQueue = table.getTopic("hb").genericSubscribe(PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(QUEUE_DEPTH));
+    }
+
+    /**
+     * @param name The Limelight's name, as set in its web interface; "" for the default "limelight"
+     * @return The handle for that Limelight, created on first use.
+     */
+    public static synchronized LimelightCamera get(String name) {
+        String tableName = name == null || name.isEmpty() ? "limelight" : name;
+        return cameras.computeIfAbsent(tableName, LimelightCamera::new);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Whether the Limelight has a valid target.
+     */
+    public boolean hasTarget() {
+        return tv.get() == 1.0;
+    }
+
+    /**
+     * @return Horizontal offset from the crosshair to the target, in degrees.
+     */
+    public double getTX() {
+        return tx.get();
+    }
+
+    /**
+     * @return Vertical offset from the crosshair to the target, in degrees.
+     */
+    public double getTY() {
+        return ty.get();
+    }
+
+    /**
+     * @return The ID of the primary AprilTag in view, or -1 if there is none.
+     */
+    public int getTargetTag() {
+        return (int) tid.get();
+    }
+
+    /**
+     * @return The FPGA timestamp the frame behind the current {@link #getTX()} was captured at, in seconds.
+     */
+    public double getTXTimestamp() {
+        // getLastChange is in microseconds and the latencies in milliseconds
+        return tx.getLastChange() / 1e6 - (pipelineLatency.get() + captureLatency.get()) / 1000;
+    }
+
+    /**
+     * @return How long the pipeline took to process the latest frame, in milliseconds.
+     */
+    public double getPipelineLatencyMillis() {
+        return pipelineLatency.get();
+    }
+
+    /**
+     * @return How long it took from capturing the latest frame to the pipeline starting on it, in milliseconds.
+     */
+    public double getCaptureLatencyMillis() {
+        return captureLatency.get();
+    }
+
+    /**
+     * @return The pipeline last requested with {@link #setPipeline(int)}.
+     */
+    public int getPipeline() {
+        return (int) pipeline.get();
+    }
+
+    public void setPipeline(int index) {
+        pipeline.set(index);
+    }
+
+    public boolean isConnected() {
+        return RobotController.getFPGATime() - heartbeat.getLastChange() < CONNECTION_TIMEOUT_MICROS;
+    }
+
+    /**
+     * @return The latest botpose_wpiblue array, and when it was received. Empty if nothing has been received.
+     */
+    public TimestampedDoubleArray getBotPose() {
+        return botPose.getAtomic();
+    }
+
+    /**
+     * @return The robot's pose relative to the primary target (botpose_targetspace): x, y, z in meters, then roll, pitch, yaw in degrees.
+     * Empty if nothing has been received.
+     */
+    public double[] getBotPoseTargetSpace() {
+        return botPoseTargetSpace.get();
+    }
+
+    /**
+     * @return Where the Limelight is on the robot, as set in its web interface (camerapose_robotspace, read like
+     * {@link frc.robot.LimelightHelpers#getCameraPose3d_RobotSpace}), or null if it hasn't been received.
+     */
+    public Transform3d getRobotToCamera() {
+        double[] pose = cameraPoseRobotSpace.get();
+        if (!Arrays.equals(pose, lastCameraPoseRobotSpace)) {
+            lastCameraPoseRobotSpace = pose;
+            robotToCamera = pose.length < 6 ? null : new Transform3d(
+                    pose[0], pose[1], pose[2],
+                    new Rotation3d(Units.degreesToRadians(pose[3]), Units.degreesToRadians(pose[4]), Units.degreesToRadians(pose[5]))
+            );
+        }
+        return robotToCamera;
+    }
+
+    /**
+     * Give the Limelight the robot's heading for MegaTag 2, like {@link frc.robot.LimelightHelpers#SetRobotOrientation_NoFlush}. Call every
+     * loop. This doesn't flush, so flush once after every camera has been given it (see {@link frc.robot.LimelightHelpers#Flush()}) to send
+     * it right away instead of with the next periodic NetworkTables update.
+     *
+     * @param yawDegrees              The robot's heading on the field, blue origin, in degrees
+     * @param yawRateDegreesPerSecond How fast the heading is changing, in degrees per second
+     */
+    public void setRobotOrientationNoFlush(double yawDegrees, double yawRateDegreesPerSecond) {
+        robotOrientationBuffer[0] = yawDegrees;
+        robotOrientationBuffer[1] = yawRateDegreesPerSecond;
+        robotOrientation.set(robotOrientationBuffer);
+    }
+
+    /**
+     * Only process part of the image, like {@link frc.robot.LimelightHelpers#setCropWindow}. Coordinates go from -1 to 1 across the image,
+     * left to right and bottom to top; the pipeline's crop must be enabled for this to have any effect.
+     */
+    public void setCropWindow(double xMin, double xMax, double yMin, double yMax) {
+        cropWindow.set(new double[] {xMin, xMax, yMin, yMax});
+    }
+
+    /**
+     * Only look for these AprilTags, like {@link frc.robot.LimelightHelpers#SetFiducialIDFiltersOverride}.
+     */
+    public void setFiducialIdFilter(int[] tagIds) {
+        double[] ids = new double[tagIds.length];
+        for (int i = 0; i < tagIds.length; i++) {
+            ids[i] = tagIds[i];
+        }
+        fiducialIdFilter.set(ids);
+    }
+
+    /**
+     * Downscale the image before looking for AprilTags, like {@link frc.robot.LimelightHelpers#SetFiducialDownscalingOverride}. More
+     * downscaling is faster but loses small (far) tags.
+     *
+     * @param downscale 1, 1.5, 2, 3 or 4; anything else (e.g. 0) leaves it to the pipeline
+     */
+    public void setFiducialDownscaling(double downscale) {
+        int setting;
+        if (downscale == 1) {
+            setting = 1;
+        } else if (downscale == 1.5) {
+            setting = 2;
+        } else if (downscale == 2) {
+            setting = 3;
+        } else if (downscale == 3) {
+            setting = 4;
+        } else if (downscale == 4) {
+            setting = 5;
+        } else {
+            setting = 0;
+        }
+        fiducialDownscale.set(setting);
+    }
+
+    /**
+     * @return Every botpose_wpiblue (MegaTag 1) value published since the last call, oldest first.
+     */
+    public TimestampedDoubleArray[] readBotPoseQueue() {
+        return botPoseQueue.readQueue();
+    }
+
+    /**
+     * @return Every botpose_orb_wpiblue (MegaTag 2) value published since the last call, oldest first.
+     */
+    public TimestampedDoubleArray[] readBotPoseMegaTag2Queue() {
+        return botPoseMegaTag2Queue.readQueue();
+    }
+
+    /**
+     * @return Every tid value published since the last call, oldest first.
+     */
+    public TimestampedDouble[] readTagIdQueue() {
+        return tagIdQueue.readQueue();
+    }
+
+    /**
+     * @return Every heartbeat published since the last call, oldest first. It goes up by one every frame.
+     */
+    public NetworkTableValue[] readHeartbeatQueue() {
+        return heartbeatQueue.readQueue();
+    }
+}
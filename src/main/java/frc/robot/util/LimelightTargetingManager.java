@@ -0,0 +1,242 @@
+package frc.robot.util;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerArrayPublisher;
+import edu.wpi.first.wpilibj.Timer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Predicts which AprilTags a Limelight should see from the robot's estimated pose, and where in the image, and narrows the Limelight to
+ * them: a crop window around the predicted tags, a fiducial ID filter of just those tags, and as much downscaling as the farthest of them
+ * allows. A smaller image and fewer candidate tags raise the pipeline's frame rate and cut its latency, which matters most while aligning
+ * to a reef face close up.
+ * <p>
+ * The prediction is only as good as the pose estimate and the camera's mount, so every tag gets a margin for pose error, the mount is read
+ * from the Limelight itself ({@link LimelightCamera#getRobotToCamera()}), and the full frame, every tag and the pipeline's own downscaling
+ * are restored whenever the mount isn't known yet, no tags are predicted, or the Limelight hasn't seen a target for
+ * {@link #REACQUIRE_TIMEOUT_SECONDS} (the estimate is probably off). Values are only sent when the prediction changes, and all of them
+ * again when the Limelight reconnects, since it forgets them when it restarts. The pipeline and capture latency are published next to the
+ * downscale factor and tag distance it was chosen for, so the latency cost of range can be measured.
+ * <p>
+ * The pipeline's crop must be enabled for the crop window to apply.
+ */
+public final class LimelightTargetingManager {
+    // Limelight 3
+    private static final double HORIZONTAL_FOV_RADIANS = Math.toRadians(62.5);
+    private static final double VERTICAL_FOV_RADIANS = Math.toRadians(48.9);
+    // 6.5in square tags, corner to center
+    private static final double TAG_HALF_DIAGONAL_METERS = Units.inchesToMeters(6.5) / Math.sqrt(2);
+    // how far off the pose estimate may be; each tag gets this much room on every side
+    private static final double POSE_ERROR_MARGIN_METERS = 0.25;
+    private static final double HEADING_ERROR_MARGIN_RADIANS = Math.toRadians(5);
+    // tags farther than this aren't used for localization anyway
+    private static final double MAX_TAG_DISTANCE_METERS = 5;
+    // crop window edges are rounded outward to this, so it is only re-sent when it actually moves
+    private static final double CROP_STEP = 0.05;
+    private static final double REACQUIRE_TIMEOUT_SECONDS = 0.5;
+    /**
+     * Downscale factors the Limelight supports, least to most aggressive, and the farthest a tag can be for each to still detect it. Needs
+     * tuning on the real camera: watch the published latency and whether the predicted tags are still seen.
+     */
+    private static final double[] DOWNSCALE_FACTORS = {1, 1.5, 2, 3};
+    private static final double[] DOWNSCALE_MAX_TAG_DISTANCES_METERS = {Double.POSITIVE_INFINITY, 3.5, 2.5, 1.5};
+    // tag distance has to cross a threshold by this much to change the downscale, so it doesn't flicker at the boundary
+    private static final double DOWNSCALE_HYSTERESIS_METERS = 0.2;
+    // faster than this, latency costs more than resolution (the robot moves further before the frame is used), so downscale one step more
+    private static final double FAST_SPEED_METERS_PER_SEC = 2;
+
+    private final LimelightCamera camera;
+    private final List<AprilTag> tags;
+    private final int[] allTagIds;
+    private final IntegerArrayPublisher predictedTagsPublisher;
+    private final DoublePublisher downscalePublisher;
+    private final DoublePublisher farthestTagDistancePublisher;
+    private final DoublePublisher pipelineLatencyPublisher;
+    private final DoublePublisher captureLatencyPublisher;
+
+    private final double[] lastCrop = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+    private int[] lastTagFilter = null;
+    private double lastTargetSeenTimestamp = Double.NEGATIVE_INFINITY;
+    private boolean wasConnected = false;
+    // index into DOWNSCALE_FACTORS chosen by distance alone, or -1 while the pipeline decides
+    private int downscaleLevel = -1;
+    private double lastDownscale = Double.NaN;
+
+    /**
+     * @param camera The Limelight to narrow
+     */
+    public LimelightTargetingManager(LimelightCamera camera) {
+        this.camera = camera;
+        AprilTagFieldLayout layout = AprilTagUtil.getFieldLayout();
+        this.tags = layout.getTags();
+        this.allTagIds = this.tags.stream().mapToInt(tag -> tag.ID).sorted().toArray();
+        String prefix = camera.getName() + "/";
+        this.predictedTagsPublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getIntegerArrayTopic(prefix + "predictedTags").publish();
+        this.downscalePublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleTopic(prefix + "downscale").publish();
+        this.farthestTagDistancePublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleTopic(prefix + "farthestPredictedTagDistance").publish();
+        this.pipelineLatencyPublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleTopic(prefix + "pipelineLatencyMs").publish();
+        this.captureLatencyPublisher = NetworkTablesUtil.MAIN_ROBOT_TABLE.getDoubleTopic(prefix + "captureLatencyMs").publish();
+    }
+
+    /**
+     * Update the crop window, tag filter and downscaling for where the robot is now. Call once per loop, after odometry is updated.
+     *
+     * @param robotPose  The robot's estimated pose, blue origin
+     * @param robotSpeed How fast the robot is driving, in m/s
+     */
+    public void update(Pose2d robotPose, double robotSpeed) {
+        double now = Timer.getFPGATimestamp();
+        boolean connected = camera.isConnected();
+        if (connected && !wasConnected) {
+            forgetSentValues();
+        }
+        wasConnected = connected;
+        if (camera.hasTarget()) {
+            lastTargetSeenTimestamp = now;
+        }
+
+        Transform3d robotToCamera = camera.getRobotToCamera();
+        int[] visibleTags = new int[tags.size()];
+        int visibleCount = 0;
+        double xMin = Double.POSITIVE_INFINITY;
+        double xMax = Double.NEGATIVE_INFINITY;
+        double yMin = Double.POSITIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+        double farthestDistance = 0;
+        // nothing is predicted until the Limelight has said where it's mounted
+        List<AprilTag> candidates = robotToCamera == null ? List.of() : tags;
+        Pose3d cameraPose = robotToCamera == null ? Pose3d.kZero : new Pose3d(robotPose).transformBy(robotToCamera);
+        for (AprilTag tag : candidates) {
+            // camera frame: x forward, y left, z up
+            Pose3d tagInCamera = tag.pose.relativeTo(cameraPose);
+            Translation3d position = tagInCamera.getTranslation();
+            double distance = position.getNorm();
+            if (position.getX() <= 0 || distance > MAX_TAG_DISTANCE_METERS) {
+                continue;
+            }
+            // the tag's face points along its x axis, which has to point back toward the camera
+            Translation3d normal = new Translation3d(1, 0, 0).rotateBy(tagInCamera.getRotation());
+            if (normal.getX() * position.getX() + normal.getY() * position.getY() + normal.getZ() * position.getZ() >= 0) {
+                continue;
+            }
+
+            double margin = Math.atan((TAG_HALF_DIAGONAL_METERS + POSE_ERROR_MARGIN_METERS) / distance);
+            double horizontal = Math.atan2(position.getY(), position.getX());
+            double vertical = Math.atan2(position.getZ(), position.getX());
+            // image coordinates go from -1 to 1 across the field of view, right and up positive; left of the camera is left in the image
+            double left = -(horizontal + margin + HEADING_ERROR_MARGIN_RADIANS) / (HORIZONTAL_FOV_RADIANS / 2);
+            double right = -(horizontal - margin - HEADING_ERROR_MARGIN_RADIANS) / (HORIZONTAL_FOV_RADIANS / 2);
+            double bottom = (vertical - margin) / (VERTICAL_FOV_RADIANS / 2);
+            double top = (vertical + margin) / (VERTICAL_FOV_RADIANS / 2);
+            if (right < -1 || left > 1 || top < -1 || bottom > 1) {
+                continue;
+            }
+
+            visibleTags[visibleCount++] = tag.ID;
+            farthestDistance = Math.max(farthestDistance, distance);
+            xMin = Math.min(xMin, left);
+            xMax = Math.max(xMax, right);
+            yMin = Math.min(yMin, bottom);
+            yMax = Math.max(yMax, top);
+        }
+        int[] predictedTags = Arrays.copyOf(visibleTags, visibleCount);
+        Arrays.sort(predictedTags);
+        predictedTagsPublisher.set(Arrays.stream(predictedTags).asLongStream().toArray());
+
+        boolean lostTargets = now - lastTargetSeenTimestamp > REACQUIRE_TIMEOUT_SECONDS;
+        if (visibleCount == 0 || lostTargets) {
+            setCropWindow(-1, 1, -1, 1);
+            setTagFilter(allTagIds);
+            downscaleLevel = -1;
+            setDownscale(0);
+        } else {
+            setCropWindow(
+                    roundDown(xMin),
+                    roundUp(xMax),
+                    roundDown(yMin),
+                    roundUp(yMax)
+            );
+            setTagFilter(predictedTags);
+            downscaleLevel = getDownscaleLevel(farthestDistance);
+            // when driving fast, trade one step of range for latency
+            int level = robotSpeed > FAST_SPEED_METERS_PER_SEC ? Math.min(downscaleLevel + 1, DOWNSCALE_FACTORS.length - 1) : downscaleLevel;
+            setDownscale(DOWNSCALE_FACTORS[level]);
+        }
+
+        farthestTagDistancePublisher.set(visibleCount == 0 ? Double.NaN : farthestDistance);
+        pipelineLatencyPublisher.set(camera.getPipelineLatencyMillis());
+        captureLatencyPublisher.set(camera.getCaptureLatencyMillis());
+    }
+
+    /**
+     * Make the next update send the crop window, tag filter and downscale even if they haven't changed.
+     */
+    private void forgetSentValues() {
+        Arrays.fill(lastCrop, Double.NaN);
+        lastTagFilter = null;
+        lastDownscale = Double.NaN;
+    }
+
+    /**
+     * @return The most aggressive downscale level that still detects a tag this far away, staying at the current level near a threshold.
+     */
+    private int getDownscaleLevel(double tagDistance) {
+        for (int level = DOWNSCALE_FACTORS.length - 1; level > 0; level--) {
+            // harder to move to a more aggressive level than to stay at one
+            double maxDistance = DOWNSCALE_MAX_TAG_DISTANCES_METERS[level] + (level <= downscaleLevel ? DOWNSCALE_HYSTERESIS_METERS : -DOWNSCALE_HYSTERESIS_METERS);
+            if (tagDistance < maxDistance) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param downscale One of {@link #DOWNSCALE_FACTORS}, or 0 for the pipeline's own setting
+     */
+    private void setDownscale(double downscale) {
+        downscalePublisher.set(downscale);
+        if (downscale == lastDownscale) {
+            return;
+        }
+        lastDownscale = downscale;
+        camera.setFiducialDownscaling(downscale);
+    }
+
+    private void setCropWindow(double xMin, double xMax, double yMin, double yMax) {
+        if (xMin == lastCrop[0] && xMax == lastCrop[1] && yMin == lastCrop[2] && yMax == lastCrop[3]) {
+            return;
+        }
+        lastCrop[0] = xMin;
+        lastCrop[1] = xMax;
+        lastCrop[2] = yMin;
+        lastCrop[3] = yMax;
+        camera.setCropWindow(xMin, xMax, yMin, yMax);
+    }
+
+    private void setTagFilter(int[] tagIds) {
+        if (Arrays.equals(tagIds, lastTagFilter)) {
+            return;
+        }
+        lastTagFilter = tagIds;
+        camera.setFiducialIdFilter(tagIds);
+    }
+
+    private static double roundDown(double value) {
+        return MathUtil.clamp(Math.floor(value / CROP_STEP) * CROP_STEP, -1, 1);
+    }
+
+    private static double roundUp(double value) {
+        return MathUtil.clamp(Math.ceil(value / CROP_STEP) * CROP_STEP, -1, 1);
+    }
+}
@@ -0,0 +1,204 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+import java.util.Optional;
+
+/**
+ * A fixed-size history of the robot's pose and field relative velocity, for looking up where the robot was when a camera frame was
+ * captured.
+ * <p>
+ * Samples are stored in parallel primitive arrays used as a ring buffer, so recording a sample never allocates and the oldest sample is
+ * overwritten once the buffer is full. Timestamps must be added in increasing order; lookups binary search them, so they are O(log n), and
+ * linearly interpolate between the two samples around the requested time (the shorter way around for the heading).
+ * <p>
+ * Not thread safe; record and look up from the main loop only.
+ */
+public final class PoseHistory {
+    /**
+     * Index of each value in the array filled by {@link #sampleAt(double, double[])}.
+     */
+    public static final int X = 0, Y = 1, THETA = 2, VX = 3, VY = 4, OMEGA = 5;
+    public static final int SAMPLE_LENGTH = 6;
+    /**
+     * Lookups up to this far past the newest sample are extrapolated from its velocity; camera frames are often captured after the pose
+     * was last recorded.
+     */
+    public static final double MAX_EXTRAPOLATION_SECONDS = 0.05;
+
+    private final int mask;
+    private final double[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] thetas;
+    private final double[] vxs;
+    private final double[] vys;
+    private final double[] omegas;
+    private long writeCount = 0;
+
+    // reused by getPoseAt
+    private final double[] lookupBuffer = new double[SAMPLE_LENGTH];
+
+    /**
+     * @param capacity The number of samples to keep. Must be a power of 2.
+     */
+    public PoseHistory(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("PoseHistory capacity must be a power of 2, got " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.timestamps = new double[capacity];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.thetas = new double[capacity];
+        this.vxs = new double[capacity];
+        this.vys = new double[capacity];
+        this.omegas = new double[capacity];
+    }
+
+    /**
+     * Record a sample. A sample with the same timestamp as the newest one replaces it; older timestamps are ignored.
+     *
+     * @param timestamp The FPGA timestamp of the sample, in seconds
+     * @param pose      The robot's pose
+     * @param speeds    The robot's field relative speeds
+     */
+    public void add(double timestamp, Pose2d pose, ChassisSpeeds speeds) {
+        add(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians(), speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
+    }
+
+    /**
+     * Record a sample. A sample with the same timestamp as the newest one replaces it; older timestamps are ignored.
+     *
+     * @param timestamp The FPGA timestamp of the sample, in seconds
+     * @param x         Field x, in meters
+     * @param y         Field y, in meters
+     * @param theta     Heading, in radians
+     * @param vx        Field relative x velocity, in m/s
+     * @param vy        Field relative y velocity, in m/s
+     * @param omega     Angular velocity, in rad/s
+     */
+    public void add(double timestamp, double x, double y, double theta, double vx, double vy, double omega) {
+        if (writeCount > 0) {
+            double newest = timestamps[(int) ((writeCount - 1) & mask)];
+            if (timestamp < newest) {
+                return;
+            }
+            if (timestamp == newest) {
+                writeCount--;
+            }
+        }
+        int slot = (int) (writeCount & mask);
+        timestamps[slot] = timestamp;
+        xs[slot] = x;
+        ys[slot] = y;
+        thetas[slot] = theta;
+        vxs[slot] = vx;
+        vys[slot] = vy;
+        omegas[slot] = omega;
+        writeCount++;
+    }
+
+    /**
+     * Forget every sample, e.g. when the pose is reset and the old samples no longer line up with the new pose.
+     */
+    public void clear() {
+        writeCount = 0;
+    }
+
+    /**
+     * @return The number of samples currently stored.
+     */
+    public int size() {
+        return (int) Math.min(writeCount, mask + 1);
+    }
+
+    /**
+     * @return The timestamp of the oldest stored sample, or NaN if there are none.
+     */
+    public double getOldestTimestamp() {
+        return size() == 0 ? Double.NaN : timestamps[slotOf(0)];
+    }
+
+    /**
+     * @return The timestamp of the newest stored sample, or NaN if there are none.
+     */
+    public double getNewestTimestamp() {
+        return size() == 0 ? Double.NaN : timestamps[slotOf(size() - 1)];
+    }
+
+    /**
+     * Interpolate the stored samples at a timestamp, without allocating.
+     *
+     * @param timestamp The FPGA timestamp to look up, in seconds
+     * @param out       Filled with the interpolated sample, indexed by {@link #X}, {@link #Y}, {@link #THETA}, {@link #VX}, {@link #VY} and
+     *                  {@link #OMEGA}. Must have at least {@link #SAMPLE_LENGTH} elements.
+     * @return False (and out is untouched) if the timestamp is older than the history or more than {@link #MAX_EXTRAPOLATION_SECONDS}
+     * newer than it.
+     */
+    public boolean sampleAt(double timestamp, double[] out) {
+        int size = size();
+        if (size == 0 || timestamp < timestamps[slotOf(0)]) {
+            return false;
+        }
+
+        int newest = slotOf(size - 1);
+        if (timestamp >= timestamps[newest]) {
+            double dt = timestamp - timestamps[newest];
+            if (dt > MAX_EXTRAPOLATION_SECONDS) {
+                return false;
+            }
+            out[X] = xs[newest] + vxs[newest] * dt;
+            out[Y] = ys[newest] + vys[newest] * dt;
+            out[THETA] = MathUtil.angleModulus(thetas[newest] + omegas[newest] * dt);
+            out[VX] = vxs[newest];
+            out[VY] = vys[newest];
+            out[OMEGA] = omegas[newest];
+            return true;
+        }
+
+        // last sample at or before the timestamp; the one after it exists since the timestamp is older than the newest sample
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (timestamps[slotOf(mid)] <= timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int before = slotOf(low);
+        int after = slotOf(low + 1);
+        double fraction = (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+
+        out[X] = MathUtil.interpolate(xs[before], xs[after], fraction);
+        out[Y] = MathUtil.interpolate(ys[before], ys[after], fraction);
+        out[THETA] = MathUtil.angleModulus(thetas[before] + MathUtil.angleModulus(thetas[after] - thetas[before]) * fraction);
+        out[VX] = MathUtil.interpolate(vxs[before], vxs[after], fraction);
+        out[VY] = MathUtil.interpolate(vys[before], vys[after], fraction);
+        out[OMEGA] = MathUtil.interpolate(omegas[before], omegas[after], fraction);
+        return true;
+    }
+
+    /**
+     * @param timestamp The FPGA timestamp to look up, in seconds
+     * @return The interpolated pose at that time, or empty if it is outside the history (see {@link #sampleAt(double, double[])}).
+     */
+    public Optional<Pose2d> getPoseAt(double timestamp) {
+        if (!sampleAt(timestamp, lookupBuffer)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Pose2d(lookupBuffer[X], lookupBuffer[Y], new Rotation2d(lookupBuffer[THETA])));
+    }
+
+    /**
+     * @param index 0 for the oldest stored sample, size() - 1 for the newest
+     */
+    private int slotOf(int index) {
+        return (int) ((writeCount - size() + index) & mask);
+    }
+}
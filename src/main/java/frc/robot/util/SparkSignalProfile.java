@@ -0,0 +1,127 @@
+package frc.robot.util;
+
+import com.revrobotics.spark.config.SparkBaseConfig;
+
+/**
+ * How often a SPARK MAX should send each of its status signals, depending on what the motor is used for.
+ * <p>
+ * By default every SPARK streams everything at fairly high rates whether or not the code reads it. Pick the profile
+ * matching how the motor is used and apply it to its config before {@link Util#configureSparkMotor}; the periods it
+ * implies are also added to {@link CanBusLoadEstimate}.
+ * <p>
+ * All periods are in milliseconds.
+ */
+public enum SparkSignalProfile {
+    /**
+     * Swerve drive motor: position and velocity are read by odometry and chassis speed calculations.
+     */
+    SWERVE_DRIVE(20, 10, 10, Period.UNUSED, Period.UNUSED),
+    /**
+     * Swerve turn motor: closed loop runs on the controller from the relative encoder; position/velocity are only read for resets and telemetry.
+     */
+    SWERVE_TURN(20, 20, 20, Period.UNUSED, Period.UNUSED),
+    /**
+     * Position-controlled mechanism on its relative encoder, where the absolute encoder is only read once to seed it (e.g. the elevator).
+     */
+    RELATIVE_POSITION_MECHANISM(20, 20, 50, Period.UNUSED, Period.UNUSED),
+    /**
+     * Position-controlled mechanism whose feedback and periodic readings come from the absolute encoder (e.g. the coral pivot).
+     */
+    ABSOLUTE_POSITION_MECHANISM(20, 50, 100, 20, 100),
+    /**
+     * Leader of a follower pair. Followers track the leader's applied output, so that has to be fast.
+     */
+    ABSOLUTE_POSITION_LEADER(10, 50, 50, 20, 100),
+    /**
+     * Follower of another SPARK: nothing is read from it except telemetry.
+     */
+    FOLLOWER(50, 100, 100, Period.UNUSED, Period.UNUSED),
+    /**
+     * Open loop roller: nothing is read except the limit switches, which come with the applied output.
+     */
+    ROLLER(20, Period.UNUSED, Period.UNUSED, Period.UNUSED, Period.UNUSED);
+
+    /**
+     * The roboRIO sends each SPARK a setpoint/heartbeat frame roughly every loop regardless of profile.
+     */
+    private static final double CONTROL_FRAMES_PER_SECOND = 50;
+
+    /**
+     * Applied output, bus voltage, output current, temperature and limit switches all share one status frame.
+     */
+    private final int outputMs;
+    private final int primaryPositionMs;
+    private final int primaryVelocityMs;
+    private final int absolutePositionMs;
+    private final int absoluteVelocityMs;
+
+    SparkSignalProfile(int outputMs, int primaryPositionMs, int primaryVelocityMs, int absolutePositionMs, int absoluteVelocityMs) {
+        this.outputMs = outputMs;
+        this.primaryPositionMs = primaryPositionMs;
+        this.primaryVelocityMs = primaryVelocityMs;
+        this.absolutePositionMs = absolutePositionMs;
+        this.absoluteVelocityMs = absoluteVelocityMs;
+    }
+
+    /**
+     * Sets the signal periods of this profile on a config and records the motor's expected traffic.
+     *
+     * @param config     The config to modify, before it is applied to the motor
+     * @param deviceName A name for the motor in the CAN load report
+     * @return The same config, for chaining
+     */
+    public SparkBaseConfig apply(SparkBaseConfig config, String deviceName) {
+        config.signals
+                .appliedOutputPeriodMs(outputMs)
+                .busVoltagePeriodMs(outputMs)
+                .outputCurrentPeriodMs(outputMs)
+                .motorTemperaturePeriodMs(outputMs)
+                .limitsPeriodMs(outputMs)
+                .faultsPeriodMs(Period.FAULTS)
+                .warningsPeriodMs(Period.FAULTS)
+                .primaryEncoderPositionPeriodMs(primaryPositionMs)
+                .primaryEncoderVelocityPeriodMs(primaryVelocityMs)
+                .absoluteEncoderPositionPeriodMs(absolutePositionMs)
+                .absoluteEncoderVelocityPeriodMs(absoluteVelocityMs)
+                .analogPositionPeriodMs(Period.UNUSED)
+                .analogVelocityPeriodMs(Period.UNUSED)
+                .analogVoltagePeriodMs(Period.UNUSED)
+                .externalOrAltEncoderPosition(Period.UNUSED)
+                .externalOrAltEncoderVelocity(Period.UNUSED)
+                .iAccumulationPeriodMs(Period.UNUSED);
+
+        CanBusLoadEstimate.add(deviceName, getFramesPerSecond());
+        return config;
+    }
+
+    /**
+     * @return The estimated number of CAN frames per second a SPARK with this profile sends and receives.
+     */
+    public double getFramesPerSecond() {
+        // primary position and velocity share a frame, as do the analog sensor's signals, and the alternate encoder's
+        return perSecond(outputMs)
+                + perSecond(Period.FAULTS)
+                + perSecond(Math.min(primaryPositionMs, primaryVelocityMs))
+                + perSecond(Period.UNUSED) // analog
+                + perSecond(Period.UNUSED) // alternate encoder
+                + perSecond(absolutePositionMs)
+                + perSecond(absoluteVelocityMs)
+                + perSecond(Period.UNUSED) // I accumulation
+                + CONTROL_FRAMES_PER_SECOND;
+    }
+
+    private static double perSecond(int periodMs) {
+        return 1000.0 / periodMs;
+    }
+
+    /**
+     * Shared periods. Nested so the enum constants above can refer to them.
+     */
+    private static final class Period {
+        /**
+         * Period for signals nothing reads. Kept slow rather than off so they're still visible in REV Hardware Client.
+         */
+        static final int UNUSED = 500;
+        static final int FAULTS = 250;
+    }
+}